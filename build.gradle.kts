@@ -3,6 +3,7 @@ plugins {
     alias(libs.plugins.runvelocity)
     alias(libs.plugins.idea.ext)
     alias(libs.plugins.blossom)
+    alias(libs.plugins.jmh)
 }
 
 repositories {
@@ -10,7 +11,14 @@ repositories {
     maven("https://mvn.exceptionflug.de/repository/exceptionflug-public/")
 }
 
+// The backend companion plugin ships inside this jar and is installed into every spawned server
+val companion: Configuration by configurations.creating {
+    isCanBeConsumed = false
+    isTransitive = false
+}
+
 dependencies {
+    companion(project(":companion"))
     compileOnly(libs.velocity)
     annotationProcessor(libs.velocity)
     compileOnly("dev.simplix:protocolize-api:2.4.3")
@@ -22,6 +30,12 @@ tasks {
         options.encoding = Charsets.UTF_8.name()
         options.release.set(21)
     }
+    processResources {
+        from(companion) {
+            into("companion")
+            rename { "voxelearth-companion.jar" }
+        }
+    }
     clean {
         // Deletes the directory that is generated by the runVelocity plugin
         delete("run")
@@ -41,4 +55,10 @@ sourceSets {
     }
 }
 
+// Allocation benchmarks for the RCON codec: ./gradlew jmh
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    profilers.add("gc")
+}
+
 java.toolchain.languageVersion.set(JavaLanguageVersion.of(21))
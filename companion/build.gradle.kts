@@ -0,0 +1,27 @@
+plugins {
+    java
+}
+
+repositories {
+    maven("https://repo.papermc.io/repository/maven-public/")
+}
+
+dependencies {
+    compileOnly(libs.paper)
+}
+
+tasks {
+    compileJava {
+        options.encoding = Charsets.UTF_8.name()
+        options.release.set(21)
+    }
+    processResources {
+        val props = mapOf("version" to project.version.toString())
+        inputs.properties(props)
+        filesMatching("plugin.yml") {
+            expand(props)
+        }
+    }
+}
+
+java.toolchain.languageVersion.set(JavaLanguageVersion.of(21))
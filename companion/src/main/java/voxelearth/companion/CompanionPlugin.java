@@ -0,0 +1,155 @@
+package voxelearth.companion;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRegisterChannelEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backend side of DynamicLoader's control channel. Tells the proxy when a player's entity is
+ * in the world and when a visit has landed, and runs the proxy's typed commands as that player,
+ * so the proxy needs neither RCON polling nor chat spoofing for them.
+ */
+public final class CompanionPlugin extends JavaPlugin implements Listener, PluginMessageListener {
+
+    // A visit that never teleports (bad address, plugin error) stops being tracked after this
+    private static final long VISIT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(3);
+
+    private record PendingVisit(String address, long deadline) {}
+
+    // Main thread only
+    private final Map<UUID, PendingVisit> pendingVisits = new HashMap<>();
+
+    @Override
+    public void onEnable() {
+        getServer().getMessenger().registerOutgoingPluginChannel(this, ControlMessages.CHANNEL);
+        getServer().getMessenger().registerIncomingPluginChannel(this, ControlMessages.CHANNEL, this);
+        getServer().getPluginManager().registerEvents(this, this);
+    }
+
+    @Override
+    public void onDisable() {
+        getServer().getMessenger().unregisterOutgoingPluginChannel(this);
+        getServer().getMessenger().unregisterIncomingPluginChannel(this);
+        pendingVisits.clear();
+    }
+
+    /* ===== events to the proxy ===== */
+
+    // Messages only reach the proxy once it has registered the channel for this player, which can
+    // happen before or after the join; whichever comes second announces the player.
+    @EventHandler
+    public void onRegisterChannel(PlayerRegisterChannelEvent event) {
+        if (ControlMessages.CHANNEL.equals(event.getChannel())) {
+            onMainThread(() -> announce(event.getPlayer()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        if (player.getListeningPluginChannels().contains(ControlMessages.CHANNEL)) {
+            announce(player);
+        }
+    }
+
+    private void announce(Player player) {
+        if (!player.isOnline() || !player.isValid()) {
+            return;
+        }
+        send(player, ControlMessages.worldReady());
+        send(player, ControlMessages.entitySpawned());
+    }
+
+    // Voxel Earth teleports the player once the destination has been built
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onTeleport(PlayerTeleportEvent event) {
+        PlayerTeleportEvent.TeleportCause cause = event.getCause();
+        if (cause != PlayerTeleportEvent.TeleportCause.PLUGIN && cause != PlayerTeleportEvent.TeleportCause.COMMAND) {
+            return;
+        }
+        Player player = event.getPlayer();
+        PendingVisit visit = pendingVisits.remove(player.getUniqueId());
+        if (visit != null && System.currentTimeMillis() <= visit.deadline()) {
+            send(player, ControlMessages.visitFinished(visit.address(), event.getTo()));
+        }
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        pendingVisits.remove(event.getPlayer().getUniqueId());
+    }
+
+    private void send(Player player, byte[] message) {
+        player.sendPluginMessage(this, ControlMessages.CHANNEL, message);
+    }
+
+    /* ===== commands from the proxy ===== */
+
+    @Override
+    public void onPluginMessageReceived(String channel, Player player, byte[] message) {
+        if (!ControlMessages.CHANNEL.equals(channel)) {
+            return;
+        }
+        ControlMessages.decode(message).ifPresentOrElse(
+                command -> onMainThread(() -> {
+                    if (player.isOnline()) {
+                        run(player, command);
+                    }
+                }),
+                () -> getLogger().warning("Ignoring unknown control message from the proxy"));
+    }
+
+    private void run(Player player, ControlMessages.Command command) {
+        switch (command) {
+            case ControlMessages.Command.Visit visit -> {
+                pendingVisits.put(player.getUniqueId(),
+                        new PendingVisit(visit.address(), System.currentTimeMillis() + VISIT_TIMEOUT_MILLIS));
+                player.performCommand("visit " + visit.address());
+            }
+            case ControlMessages.Command.Radius radius -> player.performCommand(radius.kind() + "radius " + radius.blocks());
+            case ControlMessages.Command.MoveLoad moveLoad ->
+                    player.performCommand(moveLoad.mode().isBlank() ? "moveload" : "moveload " + moveLoad.mode());
+            case ControlMessages.Command.Platform platform -> support(player);
+            case ControlMessages.Command.Run line -> player.performCommand(line.commandLine());
+            case ControlMessages.Command.Teleport to -> player.teleport(
+                    new Location(getServer().getWorlds().get(0), to.x(), to.y(), to.z(), to.yaw(), to.pitch()),
+                    PlayerTeleportEvent.TeleportCause.UNKNOWN);
+        }
+    }
+
+    /** Same effect as the proxy's old RCON pair: glass under an unsupported player, then a small lift onto it. */
+    private void support(Player player) {
+        Location feet = player.getLocation();
+        Block below = feet.getBlock().getRelative(BlockFace.DOWN);
+        if (below.getType().isAir()) {
+            below.setType(Material.GLASS);
+        }
+        // Not PLUGIN or COMMAND, so it is never mistaken for a visit landing
+        player.teleport(feet.add(0, 0.2, 0), PlayerTeleportEvent.TeleportCause.UNKNOWN);
+    }
+
+    private void onMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            getServer().getScheduler().runTask(this, task);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package voxelearth.companion;
+
+import org.bukkit.Location;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Backend half of the {@code voxelearth:control} wire format. Must stay in step with
+ * {@code voxelearth.dynamicloader.net.BackendChannel} on the proxy.
+ */
+final class ControlMessages {
+
+    static final String CHANNEL = "voxelearth:control";
+    static final int PROTOCOL_VERSION = 2;
+
+    // proxy -> backend
+    private static final byte CMD_VISIT = 1;
+    private static final byte CMD_RADIUS = 2;
+    private static final byte CMD_MOVELOAD = 3;
+    private static final byte CMD_PLATFORM = 4;
+    private static final byte CMD_RUN = 5;
+    private static final byte CMD_TELEPORT = 6;
+
+    // backend -> proxy
+    private static final byte EVT_WORLD_READY = 64;
+    private static final byte EVT_ENTITY_SPAWNED = 65;
+    private static final byte EVT_VISIT_FINISHED = 66;
+
+    sealed interface Command {
+        record Visit(String address) implements Command {}
+
+        record Radius(String kind, int blocks) implements Command {}
+
+        record MoveLoad(String mode) implements Command {}
+
+        record Platform() implements Command {}
+
+        record Run(String commandLine) implements Command {}
+
+        /** To a spot in the main world. */
+        record Teleport(double x, double y, double z, float yaw, float pitch) implements Command {}
+    }
+
+    private ControlMessages() {
+    }
+
+    static byte[] worldReady() {
+        return encode(EVT_WORLD_READY, out -> out.writeInt(PROTOCOL_VERSION));
+    }
+
+    static byte[] entitySpawned() {
+        return encode(EVT_ENTITY_SPAWNED, out -> {});
+    }
+
+    /** {@code to} is where the player landed. */
+    static byte[] visitFinished(String address, Location to) {
+        return encode(EVT_VISIT_FINISHED, out -> {
+            out.writeUTF(address);
+            out.writeUTF(to.getWorld() == null ? "" : to.getWorld().getName());
+            out.writeDouble(to.getX());
+            out.writeDouble(to.getY());
+            out.writeDouble(to.getZ());
+            out.writeFloat(to.getYaw());
+            out.writeFloat(to.getPitch());
+        });
+    }
+
+    /** Empty for malformed messages and command types this version does not know. */
+    static Optional<Command> decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return switch (in.readByte()) {
+                case CMD_VISIT -> Optional.of(new Command.Visit(in.readUTF()));
+                case CMD_RADIUS -> Optional.of(new Command.Radius(in.readUTF(), in.readInt()));
+                case CMD_MOVELOAD -> Optional.of(new Command.MoveLoad(in.readUTF()));
+                case CMD_PLATFORM -> Optional.of(new Command.Platform());
+                case CMD_RUN -> Optional.of(new Command.Run(in.readUTF()));
+                case CMD_TELEPORT -> Optional.of(new Command.Teleport(
+                        in.readDouble(), in.readDouble(), in.readDouble(), in.readFloat(), in.readFloat()));
+                default -> Optional.empty();
+            };
+        } catch (IOException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+}
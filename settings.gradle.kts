@@ -1,5 +1,7 @@
 rootProject.name = "DynamicLoader"
 
+include("companion")
+
 plugins {
     id("org.gradle.toolchains.foojay-resolver-convention") version "1.0.0"
 }
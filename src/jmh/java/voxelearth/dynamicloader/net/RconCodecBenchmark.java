@@ -0,0 +1,98 @@
+package voxelearth.dynamicloader.net;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-packet cost of the RCON codec against the allocate-per-packet code it replaced: encoding
+ * a command, and reading a reply whose text nobody looks at (the usual case) or does. Run with
+ * {@code ./gradlew jmh}; the gc profiler reports the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RconCodecBenchmark {
+    private static final int SERVERDATA_EXECCOMMAND = 2;
+    private static final int SERVERDATA_RESPONSE_VALUE = 0;
+
+    @Param({"list", "fill -5 180 -5 5 180 5 glass"})
+    public String command;
+
+    @Param({"64", "4096"})
+    public int replyBytes;
+
+    private ByteBuffer writeBuf;
+    private CharsetEncoder encoder;
+    private ByteBuffer replyFrame;
+
+    @Setup
+    public void setUp() {
+        writeBuf = ByteBuffer.allocateDirect(8 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        encoder = RconCodec.newEncoder();
+        byte[] body = "x".repeat(replyBytes).getBytes(StandardCharsets.UTF_8);
+        replyFrame = ByteBuffer.allocateDirect(4 + RconCodec.HEADER_AND_PADDING + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        replyFrame.putInt(RconCodec.HEADER_AND_PADDING + body.length).putInt(7).putInt(SERVERDATA_RESPONSE_VALUE)
+                .put(body).put((byte) 0).put((byte) 0).flip();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeAllocating() {
+        byte[] payload = command.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(4 + 4 + 4 + payload.length + 2).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(4 + 4 + payload.length + 2);
+        buf.putInt(7);
+        buf.putInt(SERVERDATA_EXECCOMMAND);
+        buf.put(payload);
+        buf.put((byte) 0).put((byte) 0);
+        return buf.flip();
+    }
+
+    @Benchmark
+    public int encodeInPlace() {
+        writeBuf.clear();
+        RconCodec.encode(writeBuf, encoder, 7, SERVERDATA_EXECCOMMAND, command);
+        return writeBuf.position();
+    }
+
+    @Benchmark
+    public String decodeAllocating() {
+        ByteBuffer buf = replyFrame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int length = buf.getInt();
+        buf.getInt(); // id
+        buf.getInt(); // type
+        byte[] body = new byte[length - RconCodec.HEADER_AND_PADDING];
+        buf.get(body);
+        StringBuilder reply = new StringBuilder();
+        reply.append(new String(body, StandardCharsets.UTF_8));
+        return reply.toString();
+    }
+
+    @Benchmark
+    public RconClient.Reply decodeInPlace() throws IOException {
+        return collect().reply();
+    }
+
+    @Benchmark
+    public void decodeInPlaceAndRead(Blackhole bh) throws IOException {
+        bh.consume(collect().reply().text());
+    }
+
+    private RconClient.Pending collect() throws IOException {
+        ByteBuffer buf = replyFrame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        RconClient.Pending pending = new RconClient.Pending(7, command);
+        int size = RconCodec.packetSize(buf);
+        buf.position(RconCodec.BODY_OFFSET);
+        pending.append(buf, RconCodec.bodyLength(size));
+        return pending;
+    }
+}
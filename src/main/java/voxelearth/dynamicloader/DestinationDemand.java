@@ -0,0 +1,62 @@
+package voxelearth.dynamicloader;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How often each destination is asked for, as an exponentially decayed request count per
+ * place key, so the warm pool can keep servers pre-loaded where players are heading now
+ * rather than where they went last week.
+ */
+public class DestinationDemand {
+
+    // Time constant of the estimate: a destination's requests fade out over roughly an hour.
+    private static final double TAU_SECONDS = 3600.0;
+    // Destinations decayed below this are forgotten once the table grows past MAX_TRACKED.
+    private static final double FORGET_BELOW = 0.05;
+    private static final int MAX_TRACKED = 256;
+
+    private static final class Score {
+        double value;
+        long updatedNanos;
+    }
+
+    private final Map<String, Score> scores = new HashMap<>();
+
+    /** A player asked to visit {@code place}. */
+    public synchronized void record(String place) {
+        long now = System.nanoTime();
+        Score score = scores.computeIfAbsent(place, key -> new Score());
+        score.value = decayed(score, now) + 1.0;
+        score.updatedNanos = now;
+        if (scores.size() > MAX_TRACKED) {
+            scores.values().removeIf(s -> decayed(s, now) < FORGET_BELOW);
+        }
+    }
+
+    /** Up to {@code limit} most requested places, most requested first. */
+    public synchronized List<String> top(int limit) {
+        long now = System.nanoTime();
+        List<Map.Entry<String, Score>> entries = new ArrayList<>(scores.entrySet());
+        entries.sort(Comparator.comparingDouble((Map.Entry<String, Score> e) -> decayed(e.getValue(), now)).reversed());
+        List<String> top = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Map.Entry<String, Score> entry : entries) {
+            if (top.size() >= limit) {
+                break;
+            }
+            top.add(entry.getKey());
+        }
+        return top;
+    }
+
+    private static double decayed(Score score, long now) {
+        if (score.updatedNanos == 0) {
+            return score.value;
+        }
+        double elapsed = (now - score.updatedNanos) / 1_000_000_000.0;
+        return score.value * Math.exp(-elapsed / TAU_SECONDS);
+    }
+}
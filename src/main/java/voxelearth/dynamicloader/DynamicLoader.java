@@ -4,13 +4,18 @@ import com.google.inject.Inject;
 import com.velocitypowered.api.command.SimpleCommand;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PluginMessageEvent;
+import com.velocitypowered.api.event.player.PlayerChooseInitialServerEvent;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
 import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Dependency;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import net.kyori.adventure.text.Component;
@@ -18,13 +23,25 @@ import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import net.kyori.adventure.text.event.ClickEvent;
 import voxelearth.dynamicloader.PartyManager.Party;
+import voxelearth.dynamicloader.net.BackendChannel;
+import voxelearth.dynamicloader.net.PortAllocator;
+import voxelearth.dynamicloader.net.RconChannel;
 import voxelearth.dynamicloader.net.RconClient;
+import voxelearth.dynamicloader.net.RconEngine;
+import voxelearth.dynamicloader.spawn.HostResources;
+import voxelearth.dynamicloader.spawn.PidFileWatcher;
+import voxelearth.dynamicloader.spawn.PlaceSnapshots;
+import voxelearth.dynamicloader.spawn.ProcessFreezer;
+import voxelearth.dynamicloader.spawn.ServerLogWatcher;
+import voxelearth.dynamicloader.spawn.ServerSpawner;
+import voxelearth.dynamicloader.spawn.SpawnScheduler;
 import voxelearth.dynamicloader.ui.NavigatorUI;
 import voxelearth.dynamicloader.ui.NavigatorUI.FamousPlace;
 import voxelearth.dynamicloader.ui.NavigatorUI.PartyAction;
 import voxelearth.dynamicloader.ui.NavigatorUI.QuickAction;
 import voxelearth.dynamicloader.ui.NavigatorUI.SettingsAction;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
@@ -35,6 +52,7 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Velocity-only DynamicLoader:
@@ -55,36 +73,109 @@ public class DynamicLoader {
     private final ProxyServer proxy;
     private final ComponentLogger logger;
 
-    // One world per party leader
-    private final Map<UUID, ServerSession> sessionsByLeader = new ConcurrentHashMap<>();
-    private final Map<UUID, UUID> leaderOfMember = new ConcurrentHashMap<>();
+    // One world per party leader, also indexed by member and server name
+    private final SessionRegistry<ServerSession> sessions = new SessionRegistry<>();
 
     // Settings state (tracked per leader on the proxy to support ±50 buttons)
     private final Map<UUID, Integer> visitRadius = new ConcurrentHashMap<>();
     private final Map<UUID, Integer> moveRadius  = new ConcurrentHashMap<>();
     private final Map<UUID, Long> nextSessionAllowed = new ConcurrentHashMap<>();
+    // Backend commands waiting for their player to land on the session server, in issue order
+    private final Map<UUID, Queue<PendingCommand>> pendingCommands = new ConcurrentHashMap<>();
+    private static final Duration PENDING_COMMAND_TIMEOUT = Duration.ofSeconds(45);
+    // Events from and typed commands to the companion plugin on each backend
+    private static final MinecraftChannelIdentifier CONTROL_CHANNEL =
+            MinecraftChannelIdentifier.create(BackendChannel.NAMESPACE, BackendChannel.NAME);
     private static final int DEFAULT_RADIUS = 256;
     private static final int RADIUS_STEP    = 50;
     private static final int RADIUS_MIN     = 50;
     private static final int RADIUS_MAX     = 1024;
-
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // Navigator destinations; also what /bakeplaces renders ahead of time
+    private static final List<FamousPlace> PLACES = List.of(
+            new FamousPlace("Great Pyramids of Giza, Egypt",        "Great Pyramid of Giza"),
+            new FamousPlace("Eiffel Tower, Paris France",           "eiffel tower paris"),
+            new FamousPlace("Statue of Liberty, NYC USA",           "statue of liberty new york"),
+            new FamousPlace("Taj Mahal, Agra India",                "taj mahal agra"),
+            new FamousPlace("Sydney Opera House, Australia",        "sydney opera house"),
+            new FamousPlace("Christ the Redeemer, Rio Brazil",      "christ the redeemer rio de janeiro"),
+            new FamousPlace("Mount Everest Base Camp, Nepal",       "everest base camp nepal"),
+            new FamousPlace("Grand Canyon South Rim, USA",          "grand canyon south rim"),
+            new FamousPlace("Great Wall Mutianyu, China",           "great wall mutianyu"),
+            new FamousPlace("Colosseum, Rome Italy",                "colosseum rome"),
+            new FamousPlace("Machu Picchu, Peru",                   "machu picchu"),
+            new FamousPlace("Burj Khalifa, Dubai UAE",              "burj khalifa dubai"),
+            new FamousPlace("Golden Gate Bridge, San Francisco",    "golden gate bridge san francisco"),
+            new FamousPlace("Big Ben, London UK",                   "big ben london"),
+            new FamousPlace("Niagara Falls, USA Canada",            "niagara falls"),
+            new FamousPlace("Santorini - Oia, Greece",              "oia santorini"),
+            new FamousPlace("Custom",                               ""),
+            new FamousPlace("Angkor Wat, Siem Reap Cambodia",       "angkor wat siem reap")
+    );
+    private static final Duration BAKE_VISIT_TIMEOUT = Duration.ofMinutes(5);
+
+    // Session orchestration mostly sleeps in poll loops; a virtual thread per task keeps that cheap
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("DynamicLoader-session-", 0).factory());
     private static final String LOBBY_NAME = "lobby";
 
     private final PartyManager parties;
     private final Set<String> platformInitialized = ConcurrentHashMap.newKeySet();
     private final Deque<ServerSession> warmPool = new ConcurrentLinkedDeque<>();
+    // Visits started by /bakeplaces, completed when the companion reports where they landed
+    private final Map<UUID, CompletableFuture<BackendChannel.Event.VisitFinished>> bakeVisits = new ConcurrentHashMap<>();
+    private final AtomicBoolean baking = new AtomicBoolean();
     private final ScheduledExecutorService warmKeeper = Executors.newSingleThreadScheduledExecutor(r -> {
         Thread t = new Thread(r, "DynamicLoader-warm");
         t.setDaemon(true);
         return t;
     });
-    private static final int WARM_BUFFER = 2;
+    private static final long BACKEND_MEMORY_MB = Long.getLong("dynamicloader.backendMemoryMb", 3072L);
+    private static final long RESERVED_MEMORY_MB = Long.getLong("dynamicloader.reservedMemoryMb", 1024L);
+    private final WarmPoolController warmSizing = new WarmPoolController(
+            Integer.getInteger("dynamicloader.warmMin", 1),
+            Integer.getInteger("dynamicloader.warmMax", 8),
+            BACKEND_MEMORY_MB,
+            RESERVED_MEMORY_MB);
+    // Boots are CPU-heavy and pre-touch their heap; admit only what the host can absorb at once
+    private final SpawnScheduler spawnScheduler = new SpawnScheduler(
+            Integer.getInteger("dynamicloader.maxConcurrentBoots", Math.max(2, Runtime.getRuntime().availableProcessors() / 4)),
+            BACKEND_MEMORY_MB + RESERVED_MEMORY_MB,
+            Double.parseDouble(System.getProperty("dynamicloader.maxLoadPerCpu", "1.5")));
+    // Share of the warm pool kept pre-loaded at the most requested baked destinations
+    private static final double WARM_DESTINATION_SHARE =
+            Double.parseDouble(System.getProperty("dynamicloader.warmDestinationShare", "0.5"));
+    private static final int WARM_TOP_DESTINATIONS = Integer.getInteger("dynamicloader.warmTopDestinations", 3);
+    // Chunks kept loaded around a pre-loaded warm server's landing, in blocks either side
+    private static final int PRELOAD_RADIUS_BLOCKS = 64;
+    private final DestinationDemand destinations = new DestinationDemand();
+    private static final Duration PLAYER_SPAWN_ADMISSION_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration FALLBACK_PING_INTERVAL = Duration.ofSeconds(5);
+    private volatile int lastWarmTarget = -1;
     private static final Path SERVERS_ROOT = Paths.get("servers");
-    private static final String SERVER_PID_FILENAME = ".server-pid";
+    private static final String SERVER_PID_FILENAME = ServerSpawner.PID_FILE_NAME;
     private static final long SESSION_COOLDOWN_MS = TimeUnit.SECONDS.toMillis(45);
+    // A session whose last member went offline stays up this long, so a relog resumes it instantly
+    private static final Duration SESSION_LINGER = Duration.ofSeconds(Long.getLong("dynamicloader.lingerSeconds", 300L));
+    private static final int MAX_LINGERING_SESSIONS = Integer.getInteger("dynamicloader.maxLingeringSessions", 4);
+    // Idle sessions, least recently used first
+    private final Deque<ServerSession> lingering = new ConcurrentLinkedDeque<>();
     private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
     private final String pythonExecutable;
+    private final ServerSpawner spawner;
+    // Operators with a customized spawn_server.py can opt back into the script with -Ddynamicloader.legacySpawner=true
+    private final boolean legacySpawner = Boolean.getBoolean("dynamicloader.legacySpawner");
+    // Only the script path has to discover the server PID from a file
+    private final PidFileWatcher pidFiles = legacySpawner ? new PidFileWatcher() : null;
+    // Backends nobody has been on for this long are SIGSTOPped until someone heads back (Linux only)
+    private static final Duration FREEZE_IDLE_AFTER = Duration.ofSeconds(Long.getLong("dynamicloader.freezeAfterSeconds", 120L));
+    // spawn_server.py leaves the tick watchdog on, which would kill a resumed server
+    private final boolean freezeIdle = !legacySpawner && !FREEZE_IDLE_AFTER.isZero() && ProcessFreezer.supported();
+    // All backend RCON connections share this one selector thread
+    private final RconEngine rconEngine = new RconEngine();
+    private final ServerLogWatcher serverLogs = new ServerLogWatcher();
+    private final PortAllocator portAllocator = new PortAllocator(
+            Integer.getInteger("dynamicloader.portRangeStart", 30070),
+            Integer.getInteger("dynamicloader.portRangeEnd", 31079));
 
     private NavigatorUI nav;
 
@@ -94,6 +185,7 @@ public class DynamicLoader {
         this.logger = logger;
         this.parties = new PartyManager(proxy);
         this.pythonExecutable = detectPythonExecutable();
+        this.spawner = new ServerSpawner(logger, Paths.get(""), freezeIdle, spawnScheduler, BACKEND_MEMORY_MB, serverLogs);
 
         proxy.getCommandManager().register("earth", new VoxelearthCommand());
         proxy.getCommandManager().register("lobby", new LobbyCommand());
@@ -106,6 +198,8 @@ public class DynamicLoader {
         proxy.getCommandManager().register("moveradiusother", new MoveRadiusOtherCommand());
         proxy.getCommandManager().register("moveload", new MoveLoadCommand());
         proxy.getCommandManager().register("moveloadother", new MoveLoadOtherCommand());
+        proxy.getCommandManager().register("bakeplaces", new BakePlacesCommand());
+        proxy.getChannelRegistrar().register(CONTROL_CHANNEL);
     }
 
     /** Initialize Protocolize-driven UI after the proxy + dependencies are ready. */
@@ -116,26 +210,7 @@ public class DynamicLoader {
             return;
         }
         this.nav = new NavigatorUI(
-                List.of(
-                        new FamousPlace("Great Pyramids of Giza, Egypt",        "Great Pyramid of Giza"),
-                        new FamousPlace("Eiffel Tower, Paris France",           "eiffel tower paris"),
-                        new FamousPlace("Statue of Liberty, NYC USA",           "statue of liberty new york"),
-                        new FamousPlace("Taj Mahal, Agra India",                "taj mahal agra"),
-                        new FamousPlace("Sydney Opera House, Australia",        "sydney opera house"),
-                        new FamousPlace("Christ the Redeemer, Rio Brazil",      "christ the redeemer rio de janeiro"),
-                        new FamousPlace("Mount Everest Base Camp, Nepal",       "everest base camp nepal"),
-                        new FamousPlace("Grand Canyon South Rim, USA",          "grand canyon south rim"),
-                        new FamousPlace("Great Wall Mutianyu, China",           "great wall mutianyu"),
-                        new FamousPlace("Colosseum, Rome Italy",                "colosseum rome"),
-                        new FamousPlace("Machu Picchu, Peru",                   "machu picchu"),
-                        new FamousPlace("Burj Khalifa, Dubai UAE",              "burj khalifa dubai"),
-                        new FamousPlace("Golden Gate Bridge, San Francisco",    "golden gate bridge san francisco"),
-                        new FamousPlace("Big Ben, London UK",                   "big ben london"),
-                        new FamousPlace("Niagara Falls, USA Canada",            "niagara falls"),
-                        new FamousPlace("Santorini - Oia, Greece",              "oia santorini"),
-                        new FamousPlace("Custom",                               ""),
-                        new FamousPlace("Angkor Wat, Siem Reap Cambodia",       "angkor wat siem reap")
-                ),
+                PLACES,
                 new NavigatorUI.Callback() {
                     @Override
                     public void onPlaceChosen(UUID playerId, FamousPlace place) {
@@ -169,6 +244,21 @@ public class DynamicLoader {
         logger.info("Navigator UI initialized.");
 
         warmKeeper.scheduleAtFixedRate(this::safeMaintainWarmPool, 0, 10, TimeUnit.SECONDS);
+        if (!legacySpawner && spawner.sharedCacheEnabled()) {
+            // Walking the cache can take a while; keep it off the warm pool's single thread
+            warmKeeper.scheduleWithFixedDelay(() -> runAsync(this::trimSharedCache), 1, 5, TimeUnit.MINUTES);
+        }
+    }
+
+    private void trimSharedCache() {
+        if (shuttingDown.get()) {
+            return;
+        }
+        try {
+            spawner.trimSharedCache();
+        } catch (Throwable t) {
+            logger.warn("[Cache] Shared cache trim failed", t);
+        }
     }
 
     private void safeMaintainWarmPool() {
@@ -183,20 +273,60 @@ public class DynamicLoader {
     }
 
     private void maintainWarmPool() {
+        evictLingering();
+        freezeIdleSessions();
         pruneDeadWarmServers();
-        int target = Math.min(8, proxy.getAllPlayers().size() + WARM_BUFFER);
+        int target = warmSizing.targetSize(warmPool.size());
+        if (target != lastWarmTarget) {
+            lastWarmTarget = target;
+            logger.info("[Warm] Pool target {} (demand {}/min, boot {}s, hit ratio {}%)", target,
+                    String.format(Locale.ROOT, "%.2f", warmSizing.demandPerMinute()),
+                    String.format(Locale.ROOT, "%.0f", warmSizing.bootSeconds()),
+                    String.format(Locale.ROOT, "%.0f", warmSizing.hitRatio() * 100));
+        }
         while (warmPool.size() < target) {
-            ServerSession warm = spawnWarm();
+            ServerSession warm = spawnWarm(nextWarmDestination(target));
             if (warm == null) {
                 break;
             }
             warmPool.add(warm);
         }
-        while (warmPool.size() > target) {
+        // Shrink one server per tick so a short lull does not discard what the next burst needs
+        if (warmPool.size() > target) {
             shutdownWarm(warmPool.pollLast());
         }
     }
 
+    /**
+     * Baked destination the next warm server should be pre-loaded at: the most requested one
+     * that no warm server covers yet, while pre-loaded servers are under their share of
+     * {@code target}. Null for a plain warm server.
+     */
+    private String nextWarmDestination(int target) {
+        if (legacySpawner || WARM_DESTINATION_SHARE <= 0 || WARM_TOP_DESTINATIONS <= 0) {
+            return null;
+        }
+        Set<String> covered = new HashSet<>();
+        for (ServerSession warm : warmPool) {
+            if (warm.place != null) {
+                covered.add(warm.place);
+            }
+        }
+        if (covered.size() >= (int) Math.floor(target * WARM_DESTINATION_SHARE)) {
+            return null;
+        }
+        for (String place : destinations.top(WARM_TOP_DESTINATIONS)) {
+            try {
+                if (!covered.contains(place) && spawner.isPlaceBaked(place)) {
+                    return place;
+                }
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+        return null;
+    }
+
     private boolean canStartNewSession(UUID leader) {
         long now = System.currentTimeMillis();
         return now >= nextSessionAllowed.getOrDefault(leader, 0L);
@@ -242,11 +372,11 @@ public class DynamicLoader {
                 iter.remove();
                 continue;
             }
-            if (warm.cleaned.get()) {
+            if (!warm.lifecycle.isLive()) {
                 iter.remove();
                 continue;
             }
-            if (warm.connecting || warm.serverPid <= 0) {
+            if (!warm.lifecycle.reached(SessionState.PINGABLE) || warm.serverPid <= 0) {
                 continue;
             }
             if (!isServerProcessAlive(warm)) {
@@ -294,6 +424,7 @@ public class DynamicLoader {
 
     private static class ServerSession {
         String name;
+        PortAllocator.Lease ports;
         int port;
         int rconPort;
         String rconPass;
@@ -301,12 +432,59 @@ public class DynamicLoader {
         Path folder;
         Path pidFile;
         ServerInfo info;
-        boolean connecting = false;
         UUID leader;
         final Set<UUID> members = ConcurrentHashMap.newKeySet(); // includes leader
-        final AtomicBoolean cleaned = new AtomicBoolean(false);
+        final SessionLifecycle lifecycle = new SessionLifecycle();
+        boolean prebakedWorld;
+        volatile boolean keepWorld; // archive its world for the leader on teardown
+        String place; // baked destination to copy in at spawn
+        PlaceSnapshots.Landing landing; // where that destination lands, once copied in
         volatile long serverPid = -1L;
         volatile ProcessHandle serverHandle;
+        RconChannel rcon; // guarded by the session; opened on first use, closed in cleanupSession
+        volatile Closeable logWatch;
+        volatile boolean rconAnnounced;
+        volatile boolean companion; // the backend's companion plugin has introduced itself
+        volatile long idleSince; // System.nanoTime() when it started lingering; 0 while in use
+        volatile long emptySince; // System.nanoTime() when the last player left its server; 0 while occupied
+        volatile boolean frozen; // process tree SIGSTOPped and unregistered from the proxy
+        final ReentrantLock freezeLock = new ReentrantLock();
+        // Completed when the companion reports the player's entity for their current connection
+        final Map<UUID, CompletableFuture<Void>> entities = new ConcurrentHashMap<>();
+
+        CompletableFuture<Void> entitySpawned(UUID playerId) {
+            return entities.computeIfAbsent(playerId, id -> new CompletableFuture<>());
+        }
+
+        /** Forget any report from an earlier connection; a fresh join spawns a fresh entity. */
+        void expectEntity(UUID playerId) {
+            entities.put(playerId, new CompletableFuture<>());
+        }
+
+        synchronized RconChannel rcon(RconEngine engine) {
+            if (rcon == null) {
+                rcon = new RconChannel(engine, "127.0.0.1", rconPort, rconPass);
+            }
+            return rcon;
+        }
+
+        synchronized void closeRcon() {
+            if (rcon != null) {
+                rcon.close();
+                rcon = null;
+            }
+        }
+
+        void stopFollowingLog() {
+            Closeable watch = logWatch;
+            logWatch = null;
+            if (watch != null) {
+                try {
+                    watch.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
     }
 
     // /help (override)
@@ -339,7 +517,7 @@ public class DynamicLoader {
                 return;
             }
 
-            ServerSession existing = sessionsByLeader.get(leader);
+            ServerSession existing = sessions.byLeader(leader);
             if (existing != null) {
                 player.sendMessage(Component.text("Reconnecting to your personal Earth...", NamedTextColor.YELLOW));
                 connectToExistingServer(player, existing);
@@ -357,13 +535,14 @@ public class DynamicLoader {
                 return;
             }
 
-            ServerSession warm = adoptWarmSession(leader, members);
+            ServerSession warm = adoptWarmSession(leader, members, null);
             if (warm != null) {
                 recordSessionCreation(leader);
                 player.sendMessage(Component.text("dYO? Connecting you to your personal Earth...", NamedTextColor.AQUA));
                 logger.info("[Session] Adopting warm server {} for leader {}", warm.name, leader);
                 executor.submit(() -> {
                     if (connectLeader(player, warm, true)) {
+                        releasePreload(warm);
                         pullPartyMembers(warm);
                     } else {
                         clearSessionCooldown(leader);
@@ -373,24 +552,27 @@ public class DynamicLoader {
             }
 
             String name = "voxelearth-" + leader.toString().substring(0, 8);
-            int port = 30070 + ThreadLocalRandom.current().nextInt(1000);
-            int rconPort = port + 10;
+            PortAllocator.Lease ports = leasePorts(player);
+            if (ports == null) {
+                return;
+            }
+            int port = ports.port();
+            int rconPort = ports.rconPort();
             String rconPass = generateRconPassword();
 
             ServerSession session = new ServerSession();
             session.name = name;
+            session.ports = ports;
             session.port = port;
             session.rconPort = rconPort;
             session.rconPass = rconPass;
             session.folder = SERVERS_ROOT.resolve(name);
             session.pidFile = session.folder.resolve(SERVER_PID_FILENAME);
             session.info = new ServerInfo(name, new InetSocketAddress("127.0.0.1", port));
-            session.connecting = true;
             session.leader = leader;
             session.members.addAll(members);
 
-            sessionsByLeader.put(leader, session);
-            for (UUID m : members) leaderOfMember.put(m, leader);
+            sessions.register(session, leader, name, members, DynamicLoader.this::isOnline);
 
             // initialize default settings for this leader
             visitRadius.putIfAbsent(leader, DEFAULT_RADIUS);
@@ -457,10 +639,13 @@ public class DynamicLoader {
                     if (ok) {
                         UUID leader = parties.leaderOf(p.getUniqueId());
                         p.sendMessage(Component.text("You joined the party.", NamedTextColor.GREEN));
-                        ServerSession s = sessionsByLeader.get(leader);
-                        if (s != null && !s.connecting) {
-                            s.members.add(p.getUniqueId());
-                            connectToExistingServer(p, s);
+                        ServerSession s = sessions.byLeader(leader);
+                        if (s != null && s.lifecycle.isLive()) {
+                            // Until the leader is in, pullPartyMembers will bring new members along
+                            joinSession(s, p.getUniqueId());
+                            if (s.lifecycle.reached(SessionState.ACTIVE)) {
+                                connectToExistingServer(p, s);
+                            }
                         }
                     } else {
                         p.sendMessage(Component.text("No pending invite.", NamedTextColor.RED));
@@ -469,8 +654,8 @@ public class DynamicLoader {
                 case "leave" -> parties.leave(p.getUniqueId());
                 case "disband" -> {
                     if (parties.isLeader(p.getUniqueId())) {
-                        ServerSession s = sessionsByLeader.remove(p.getUniqueId());
-                        if (s != null) runAsync(() -> cleanupSession(null, s));
+                        ServerSession s = sessions.byLeader(p.getUniqueId());
+                        if (s != null && sessions.remove(s)) runAsync(() -> cleanupSession(null, s));
                         parties.disband(p.getUniqueId());
                     } else {
                         p.sendMessage(Component.text("Only the leader can disband.", NamedTextColor.RED));
@@ -503,6 +688,38 @@ public class DynamicLoader {
         }
     }
 
+    private class BakePlacesCommand implements SimpleCommand {
+        @Override
+        public void execute(Invocation in) {
+            if (!(in.source() instanceof Player player)) return;
+            ServerSession session = sessions.byLeader(player.getUniqueId());
+            if (legacySpawner || session == null || !isOnSessionServer(player, session)) {
+                player.sendMessage(Component.text("Start your own world with /earth, then run /bakeplaces there.", NamedTextColor.RED));
+                return;
+            }
+            if (!session.companion) {
+                player.sendMessage(Component.text("Baking needs the companion plugin on your server.", NamedTextColor.RED));
+                return;
+            }
+            if (!baking.compareAndSet(false, true)) {
+                player.sendMessage(Component.text("A bake is already running.", NamedTextColor.YELLOW));
+                return;
+            }
+            runAsync(() -> {
+                try {
+                    bakePlaces(player, session);
+                } finally {
+                    baking.set(false);
+                }
+            });
+        }
+
+        @Override
+        public boolean hasPermission(Invocation in) {
+            return in.source().hasPermission("dynamicloader.bake");
+        }
+    }
+
     private class VisitRadiusCommand implements SimpleCommand {
         @Override
         public void execute(Invocation in) {
@@ -616,7 +833,12 @@ public class DynamicLoader {
             return;
         }
 
-        ServerSession session = sessionsByLeader.get(leader);
+        String destination = PlaceSnapshots.keyFor(cleanedVisit);
+        if (!destination.isEmpty()) {
+            destinations.record(destination);
+        }
+        String place = bakedPlaceFor(cleanedVisit);
+        ServerSession session = sessions.byLeader(leader);
         if (session == null) {
             if (!leader.equals(playerId)) {
                 player.sendMessage(Component.text("Ask your party leader to start the world with /earth.", NamedTextColor.RED));
@@ -628,14 +850,21 @@ public class DynamicLoader {
                 return;
             }
             Collection<UUID> members = partyMembersFor(leader);
-            ServerSession warm = adoptWarmSession(leader, members);
+            ServerSession warm = adoptWarmSession(leader, members, place);
             if (warm != null) {
                 recordSessionCreation(leader);
                 player.sendMessage(Component.text("?? Connecting you to your personal Earth...", NamedTextColor.AQUA));
-                logger.info("[Session] Adopting warm server {} for /visit leader {}", warm.name, leader);
+                boolean preloaded = place != null && place.equals(warm.place) && warm.landing != null;
+                logger.info("[Session] Adopting warm server {} for /visit leader {}{}", warm.name, leader,
+                        preloaded ? " (already at " + place + ")" : "");
                 executor.submit(() -> {
+                    // Snapshots only go into servers that have not started; a running one visits normally
+                    PlaceSnapshots.Landing landing = preloaded ? warm.landing : null;
                     if (connectLeader(player, warm, false)) {
-                        scheduleBackendCommandAfterConnect(player, warm, playerCmd);
+                        if (landing == null || !landAt(player, warm, landing, cleanedVisit)) {
+                            scheduleBackendCommandAfterConnect(player, warm, playerCmd);
+                        }
+                        releasePreload(warm);
                         pullPartyMembers(warm);
                     } else {
                         clearSessionCooldown(leader);
@@ -644,25 +873,27 @@ public class DynamicLoader {
                 return;
             }
             String name = "voxelearth-" + leader.toString().substring(0, 8);
-            int port = 30070 + ThreadLocalRandom.current().nextInt(1000);
-            int rconPort = port + 10;
+            PortAllocator.Lease ports = leasePorts(player);
+            if (ports == null) {
+                return;
+            }
+            int port = ports.port();
+            int rconPort = ports.rconPort();
             String rconPass = generateRconPassword();
 
             session = new ServerSession();
             session.name = name;
+            session.ports = ports;
             session.port = port;
             session.rconPort = rconPort;
             session.rconPass = rconPass;
             session.folder = Paths.get("servers", name);
             session.info = new ServerInfo(name, new InetSocketAddress("127.0.0.1", port));
-            session.connecting = true;
             session.leader = leader;
             session.members.addAll(members);
+            session.place = place;
 
-            sessionsByLeader.put(leader, session);
-            for (UUID member : members) {
-                leaderOfMember.put(member, leader);
-            }
+            sessions.register(session, leader, name, members, this::isOnline);
 
             visitRadius.putIfAbsent(leader, DEFAULT_RADIUS);
             moveRadius.putIfAbsent(leader,  DEFAULT_RADIUS);
@@ -671,15 +902,97 @@ public class DynamicLoader {
             logger.info("[Session] Spawning new server {} for /visit leader {} (port {}, RCON {})", name, leader, port, rconPort);
             recordSessionCreation(leader);
             ServerSession finalSession = session;
-            executor.submit(() -> spawnAndConnectThenRun(player, finalSession, playerCmd));
+            executor.submit(() -> spawnAndConnectThenRun(player, finalSession, playerCmd, cleanedVisit));
         } else {
             if (!isOnSessionServer(player, session)) {
                 connectToExistingServer(player, session);
             }
+            // The server is running: Paper would ignore or overwrite region files copied under it
             scheduleBackendCommandAfterConnect(player, session, playerCmd);
         }
     }
 
+    /** Key of the baked snapshot for this visit address, or null when it has none. */
+    private String bakedPlaceFor(String address) {
+        if (legacySpawner) {
+            return null;
+        }
+        String key = PlaceSnapshots.keyFor(address);
+        try {
+            return !key.isEmpty() && spawner.isPlaceBaked(key) ? key : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /** Teleport {@code player} to a baked place once their entity is on the session server. */
+    private boolean landAt(Player player, ServerSession session, PlaceSnapshots.Landing landing, String address) {
+        if (!waitForPlayerEntity(session, player, Duration.ofSeconds(30))) {
+            return false;
+        }
+        boolean sent = session.companion
+                ? sendControl(player, session, BackendChannel.teleport(
+                        landing.x(), landing.y(), landing.z(), landing.yaw(), landing.pitch()))
+                : sendRconWithRetry(session, String.format(Locale.ROOT, "tp %s %.3f %.3f %.3f %.1f %.1f",
+                        player.getUsername(), landing.x(), landing.y(), landing.z(), landing.yaw(), landing.pitch()), 3, 200);
+        if (sent) {
+            player.sendActionBar(Component.text("Arrived at " + address, NamedTextColor.GREEN));
+        }
+        return sent;
+    }
+
+    /**
+     * Visit every catalog place that has no snapshot for the current template on the operator's
+     * own server, one after another, and bake the regions around where each visit lands.
+     */
+    private void bakePlaces(Player player, ServerSession session) {
+        UUID playerId = player.getUniqueId();
+        int radius = visitRadius.getOrDefault(playerId, DEFAULT_RADIUS);
+        int baked = 0;
+        for (FamousPlace famous : PLACES) {
+            String address = sanitizeVisitInput(famous.visitArg());
+            String place = PlaceSnapshots.keyFor(address);
+            if (place.isEmpty() || bakedPlaceFor(address) != null) {
+                continue;
+            }
+            if (!player.isActive() || !isOnSessionServer(player, session)) {
+                player.sendMessage(Component.text("Bake stopped: you left your world.", NamedTextColor.RED));
+                return;
+            }
+            player.sendMessage(Component.text("Baking " + famous.name() + "...", NamedTextColor.GRAY));
+            CompletableFuture<BackendChannel.Event.VisitFinished> finished = new CompletableFuture<>();
+            bakeVisits.put(playerId, finished);
+            try {
+                if (!sendControl(player, session, BackendChannel.visit(address))) {
+                    player.sendMessage(Component.text("Bake stopped: could not reach your server.", NamedTextColor.RED));
+                    return;
+                }
+                BackendChannel.Event.VisitFinished visit = finished.get(BAKE_VISIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                if (!"world".equals(visit.world())) {
+                    logger.warn("[World] Visit to {} landed in {}; only the main world is baked", address, visit.world());
+                    continue;
+                }
+                if (!sendRconWithRetry(session, "save-all flush", 3, 200)) {
+                    logger.warn("[World] Could not flush {} before baking {}", session.name, place);
+                    continue;
+                }
+                spawner.bakePlace(place, session.folder,
+                        new PlaceSnapshots.Landing(visit.x(), visit.y(), visit.z(), visit.yaw(), visit.pitch()), radius);
+                baked++;
+            } catch (TimeoutException ex) {
+                logger.warn("[World] Visit to {} did not finish within {}s; skipping it", address, BAKE_VISIT_TIMEOUT.toSeconds());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | IOException ex) {
+                logger.warn("[World] Could not bake {}: {}", place, ex.getMessage());
+            } finally {
+                bakeVisits.remove(playerId, finished);
+            }
+        }
+        player.sendMessage(Component.text("Baked " + baked + " place(s).", NamedTextColor.GREEN));
+    }
+
     private void handleSettingsAction(Player player, SettingsAction action) {
         UUID leader = leaderFor(player.getUniqueId());
 
@@ -741,6 +1054,16 @@ public class DynamicLoader {
         forwardPlayerCommand(player, leader, "moveload", payload);
     }
 
+    private boolean isOnline(UUID playerId) {
+        return proxy.getPlayer(playerId).isPresent();
+    }
+
+    /** Add an online player to a live session's party. */
+    private void joinSession(ServerSession session, UUID playerId) {
+        session.members.add(playerId);
+        sessions.addMember(session, playerId, true);
+    }
+
     private UUID leaderFor(UUID playerId) {
         return parties.leaderOf(playerId);
     }
@@ -755,12 +1078,25 @@ public class DynamicLoader {
                 });
     }
 
-    private ServerSession adoptWarmSession(UUID leader, Collection<UUID> members) {
-        ServerSession warm = warmPool.poll();
+    /**
+     * Take a warm server for {@code leader}: one pre-loaded at {@code place} if there is one,
+     * otherwise a plain one, so pre-loaded servers stay available for their destination. Null
+     * when none is free or the leader's archived world needs a fresh spawn.
+     */
+    private ServerSession adoptWarmSession(UUID leader, Collection<UUID> members, String place) {
+        // A running server would keep its own copy of every region it already holds and store it
+        // over the archived one, so a leader with an archive gets a fresh spawn that restores it whole
+        if (!legacySpawner && spawner.hasArchivedWorld(leader)) {
+            logger.info("[Warm] Leader {} has an archived world; spawning a server to restore it", leader);
+            return null;
+        }
+        ServerSession warm = takeWarm(place);
         if (warm == null) {
+            warmSizing.recordMiss();
             requestWarmTopUp();
             return null;
         }
+        warmSizing.recordHit();
         requestWarmTopUp();
 
         String oldName = warm.name;
@@ -781,10 +1117,8 @@ public class DynamicLoader {
         proxy.registerServer(alias);
 
         logger.info("[Warm] Warm session {} renamed and adopted as {} for leader {}", oldName, newName, leader);
-        sessionsByLeader.put(leader, warm);
-        for (UUID member : members) {
-            leaderOfMember.put(member, leader);
-        }
+        // Indexed only now, under the adopted name; the warm name is never registered
+        sessions.register(warm, leader, newName, members, this::isOnline);
 
         platformInitialized.remove(oldName);
         platformInitialized.add(newName);
@@ -795,6 +1129,22 @@ public class DynamicLoader {
         return warm;
     }
 
+    private ServerSession takeWarm(String place) {
+        ServerSession plain = null;
+        for (ServerSession warm : warmPool) {
+            if (place != null && place.equals(warm.place) && warmPool.remove(warm)) {
+                return warm;
+            }
+            if (plain == null && warm.place == null) {
+                plain = warm;
+            }
+        }
+        if (plain != null && warmPool.remove(plain)) {
+            return plain;
+        }
+        return warmPool.poll();
+    }
+
     private boolean forwardPlayerCommand(Player player, UUID leader, String label, String... args) {
         String playerCommand = sanitizeCommandLine(label, args);
         if (playerCommand.isBlank()) {
@@ -806,23 +1156,17 @@ public class DynamicLoader {
 
     private boolean forwardCommandToSession(Player player, UUID leader, String playerCommand) {
         UUID resolvedLeader = leader != null ? leader : player.getUniqueId();
-        ServerSession session = sessionsByLeader.get(resolvedLeader);
+        ServerSession session = sessions.byLeader(resolvedLeader);
         if (session == null) {
             player.sendMessage(Component.text("Start your world with /earth first.", NamedTextColor.YELLOW));
             return false;
         }
 
-        session.members.add(player.getUniqueId());
+        joinSession(session, player.getUniqueId());
 
         boolean alreadyThere = isOnSessionServer(player, session);
         if (!alreadyThere) {
             connectToExistingServer(player, session);
-            if (session.connecting) {
-                executor.submit(() -> {
-                    try { Thread.sleep(5000); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
-                    connectToExistingServer(player, session);
-                });
-            }
         }
 
         String safeCommand = sanitizeForSpoof(playerCommand);
@@ -834,81 +1178,60 @@ public class DynamicLoader {
         return true;
     }
 
-    private ServerSession spawnWarm() {
+    /** {@code place}: baked destination to pre-load the server at, or null for a plain void world. */
+    private ServerSession spawnWarm(String place) {
         if (shuttingDown.get()) {
             logger.info("[Warm] Ignoring warm spawn request (proxy shutting down)");
             return null;
         }
 
+        SpawnScheduler.Permit permit = spawnScheduler.tryAcquireWarm();
+        if (permit == null) {
+            // Host busy or a player spawn is waiting; the next upkeep tick tries again
+            return null;
+        }
+
+        PortAllocator.Lease ports;
+        try {
+            ports = portAllocator.acquire();
+        } catch (IOException ex) {
+            logger.warn("[Warm] Skipping warm spawn: {}", ex.getMessage());
+            permit.close();
+            return null;
+        }
+
         ServerSession session = new ServerSession();
         session.name = "voxelearth-warm-" + UUID.randomUUID().toString().substring(0, 4);
-        session.port = 30070 + ThreadLocalRandom.current().nextInt(1000);
-        session.rconPort = session.port + 10;
+        session.ports = ports;
+        session.port = ports.port();
+        session.rconPort = ports.rconPort();
         session.rconPass = generateRconPassword();
         session.folder = SERVERS_ROOT.resolve(session.name);
         session.pidFile = session.folder.resolve(SERVER_PID_FILENAME);
         session.info = new ServerInfo(session.name, new InetSocketAddress("127.0.0.1", session.port));
-        session.connecting = true;
+        session.place = place;
 
-        Path workdir  = Paths.get("").toAbsolutePath();
-        Path spawner  = workdir.resolve("spawn_server.py");
-        Path template = workdir.resolve("voxelearth.zip");
-        Path baseDir  = workdir.resolve("templates").resolve("voxelearth-base");
-        Path spawnLog = workdir.resolve("spawn_server.log");
+        Path spawnLog = session.folder.resolve(ServerSpawner.LOG_FILE_NAME);
 
-        logger.info("[Warm] Spawning {} on port {} (RCON {})", session.name, session.port, session.rconPort);
-        logger.info("[Spawn] workdir={} spawner={} template={} base={}", workdir, spawner, template, baseDir);
+        logger.info("[Warm] Spawning {} on port {} (RCON {}){}", session.name, session.port, session.rconPort,
+                place == null ? "" : " pre-loaded at " + place);
 
         executor.submit(() -> {
+            long spawnStarted = System.nanoTime();
             if (shuttingDown.get()) {
                 logger.info("[Warm] Abort warm spawn {} — proxy shutting down", session.name);
+                permit.close();
                 cleanupSession(null, session);
                 return;
             }
-            try {
-                ProcessBuilder pb = new ProcessBuilder(
-                        pythonExecutable, spawner.toString(),
-                        "warm",
-                        String.valueOf(session.port),
-                        "--rcon-port", String.valueOf(session.rconPort),
-                        "--rcon-pass", session.rconPass,
-                        "--template", template.toString(),
-                        "--base-dir", baseDir.toString(),
-                        "--empty-world",
-                        "--server-name", session.name
-                );
-                pb.directory(workdir.toFile());
-                pb.redirectErrorStream(true);
-                pb.redirectOutput(ProcessBuilder.Redirect.appendTo(spawnLog.toFile()));
-                pb.environment().put("PYTHONUNBUFFERED", "1");
-
-                session.process = pb.start();
-
-                if (!captureServerPid(session, spawnLog, Duration.ofSeconds(90))) {
+            try (permit) {
+                if (!launchBackend(session, true)) {
                     logger.warn("[Warm] PID capture failed for {}; see {}", session.name, spawnLog);
                     killProcess(session.process, 0, 500);
                     cleanupSession(null, session);
                     return;
                 }
-
-                if (shuttingDown.get()) {
-                    logger.info("[Warm] Shutdown triggered; terminating {}", session.name);
-                    killProcess(session.process, 0, 500);
-                    cleanupSession(null, session);
-                    return;
-                }
-
-                try {
-                    Thread.sleep(1500);
-                    if (!session.process.isAlive()) {
-                        int code = session.process.exitValue();
-                        logger.warn("[Spawn] {} spawner exited early (code {}). See {}", session.name, code, spawnLog);
-                    }
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                } catch (IllegalThreadStateException ignored) {
-                    // process still alive
-                }
+                session.lifecycle.advance(SessionState.PID_KNOWN);
 
                 if (shuttingDown.get()) {
                     logger.info("[Warm] Shutdown triggered before registering {}; cleaning up", session.name);
@@ -918,41 +1241,24 @@ public class DynamicLoader {
                 }
 
                 proxy.registerServer(session.info);
+                session.lifecycle.advance(SessionState.REGISTERED);
 
-                boolean reached = false;
-                long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
-                while (System.nanoTime() < deadline) {
-                    if (shuttingDown.get()) {
-                        logger.info("[Warm] Shutdown triggered while waiting for {}; cleaning up", session.name);
-                        cleanupSession(null, session);
-                        return;
-                    }
-                    try {
-                        proxy.getServer(session.name).orElseThrow().ping().join();
-                        reached = true;
-                        break;
-                    } catch (Exception ignored) {
-                        try {
-                            Thread.sleep(500);
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            return;
-                        }
+                if (!pingUntilReachable(session, Duration.ofSeconds(60))) {
+                    if (!shuttingDown.get()) {
+                        logger.warn("[Warm] {} did not respond to pings within 60s. Cleaning up. See {}", session.name, spawnLog);
                     }
-                }
-
-                session.connecting = false;
-
-                if (!reached) {
-                    logger.warn("[Warm] {} did not respond to pings within 60s. Cleaning up. See {}", session.name, spawnLog);
                     cleanupSession(null, session);
                     return;
                 }
 
+                // The boot is over; platform, snapshot and preload work must not hold back player boots
+                permit.close();
+                warmSizing.recordBootTime(Duration.ofNanos(System.nanoTime() - spawnStarted));
                 logger.info("[Warm] Warm server {} responding to pings", session.name);
-                if (platformInitialized.add(session.name)) {
-                    ensureSpawnPlatformViaRcon(session);
+                if (platformInitialized.add(session.name) && ensureSpawnPlatformViaRcon(session)) {
+                    captureVoidWorldSnapshot(session);
                 }
+                preloadLanding(session);
 
             } catch (Exception e) {
                 logger.warn("Warm spawn failed for {}: {}. See {}", session.name, e.toString(), spawnLog);
@@ -963,6 +1269,118 @@ public class DynamicLoader {
         return session;
     }
 
+    /** Keep the chunks around a pre-loaded warm server's landing in memory until a player takes it. */
+    private void preloadLanding(ServerSession session) {
+        PlaceSnapshots.Landing landing = session.landing;
+        // Already adopted while booting: the player is on their way and will load the area themselves
+        if (landing == null || session.leader != null) {
+            return;
+        }
+        int x = (int) Math.floor(landing.x());
+        int z = (int) Math.floor(landing.z());
+        String command = String.format(Locale.ROOT, "forceload add %d %d %d %d",
+                x - PRELOAD_RADIUS_BLOCKS, z - PRELOAD_RADIUS_BLOCKS, x + PRELOAD_RADIUS_BLOCKS, z + PRELOAD_RADIUS_BLOCKS);
+        if (sendRconWithRetry(session, command, 3, 200)) {
+            logger.info("[Warm] {} holding {} loaded", session.name, session.place);
+        }
+    }
+
+    /** The adopting player keeps their own chunks loaded; the warm server's hold is no longer needed. */
+    private void releasePreload(ServerSession session) {
+        if (session.landing != null && session.leader != null) {
+            sendRconWithRetry(session, "forceload remove all", 2, 200);
+        }
+    }
+
+    /**
+     * Prepare the session folder and start its Paper JVM. The in-process spawner hands back the
+     * server process itself; the legacy script path still has to discover the PID from its file.
+     */
+    private boolean launchBackend(ServerSession session, boolean emptyWorld) throws IOException {
+        if (legacySpawner) {
+            if (!launchViaScript(session, emptyWorld)) {
+                return false;
+            }
+            followServerLog(session);
+            return true;
+        }
+        // Warm servers (no leader yet) boot from the void snapshot; a player's own spawn gets their archived world back
+        UUID worldOwner = emptyWorld ? null : session.leader;
+        ServerSpawner.Launched launched = spawner.spawn(new ServerSpawner.Request(
+                session.name, session.port, session.rconPort, session.rconPass, emptyWorld, worldOwner,
+                session.place));
+        if (launched.prebakedWorld()) {
+            // Platform and world spawn are baked into the snapshot
+            platformInitialized.add(session.name);
+            session.prebakedWorld = true;
+        }
+        session.keepWorld = launched.restoredWorld();
+        session.landing = launched.landing();
+        session.process = launched.process();
+        session.folder = spawner.folderFor(session.name);
+        session.pidFile = session.folder.resolve(SERVER_PID_FILENAME);
+        session.serverHandle = session.process.toHandle();
+        session.serverPid = session.process.pid();
+        followServerLog(session);
+        return true;
+    }
+
+    /**
+     * Advance the session from its own log: Paper prints "Done (…)!" once it accepts players and
+     * "RCON running on" just after. Pings and RCON probes remain as a fallback if the log is unreadable.
+     */
+    private void followServerLog(ServerSession session) {
+        try {
+            boolean expectRcon = session.rconPort > 0 && session.rconPass != null;
+            session.logWatch = serverLogs.watch(session.folder, expectRcon, new ServerLogWatcher.Listener() {
+                @Override
+                public void rconReady() {
+                    session.rconAnnounced = true;
+                    // Paper logs this after Done; advancing RCON_READY must not mark an unpingable server PINGABLE
+                    if (session.lifecycle.reached(SessionState.PINGABLE)) {
+                        session.lifecycle.advance(SessionState.RCON_READY);
+                    }
+                }
+
+                @Override
+                public void serverDone() {
+                    session.lifecycle.advance(SessionState.PINGABLE);
+                    if (session.rconAnnounced) {
+                        session.lifecycle.advance(SessionState.RCON_READY);
+                    }
+                }
+            });
+        } catch (IOException ex) {
+            logger.warn("[Spawn] Not following the log of {} ({}); readiness falls back to pings", session.name, ex.getMessage());
+        }
+    }
+
+    private boolean launchViaScript(ServerSession session, boolean emptyWorld) throws IOException {
+        Path workdir  = Paths.get("").toAbsolutePath();
+        Path script   = workdir.resolve("spawn_server.py");
+        Path spawnLog = workdir.resolve("spawn_server.log");
+
+        List<String> command = new ArrayList<>(List.of(
+                pythonExecutable, script.toString(),
+                session.leader != null ? session.leader.toString() : "warm",
+                String.valueOf(session.port),
+                "--rcon-port", String.valueOf(session.rconPort),
+                "--rcon-pass", session.rconPass,
+                "--server-name", session.name
+        ));
+        if (emptyWorld) {
+            command.add("--empty-world");
+        }
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(workdir.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.appendTo(spawnLog.toFile()));
+        pb.environment().put("PYTHONUNBUFFERED", "1");
+        session.process = pb.start();
+
+        return captureServerPid(session, spawnLog, Duration.ofSeconds(90));
+    }
+
     private boolean captureServerPid(ServerSession session, Path spawnLog, Duration timeout) {
         if (session == null) {
             return false;
@@ -974,37 +1392,30 @@ public class DynamicLoader {
         }
         session.pidFile = pidFile;
 
-        long deadline = System.nanoTime() + timeout.toNanos();
-        boolean warned = false;
-        while (System.nanoTime() < deadline && !shuttingDown.get()) {
-            if (Files.exists(pidFile)) {
-                try {
-                    String raw = Files.readString(pidFile, StandardCharsets.UTF_8).trim();
-                    long pid = Long.parseLong(raw);
-                    session.serverPid = pid;
-                    try {
-                        session.serverHandle = ProcessHandle.of(pid).orElse(null);
-                    } catch (Exception ignored) {
-                        session.serverHandle = null;
-                    }
-                    logger.info("[Spawn] {} reported Java PID {}", session.name, pid);
-                    return true;
-                } catch (IOException | NumberFormatException ex) {
-                    if (!warned) {
-                        logger.warn("[Spawn] PID file {} unreadable for {} ({}); retrying", pidFile, session.name, ex.getMessage());
-                        warned = true;
-                    }
-                }
-            }
+        // The script atomically replaces the PID file; the watcher completes as soon as it lands
+        CompletableFuture<Long> discovered = pidFiles.await(pidFile);
+        try {
+            long pid = discovered.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            session.serverPid = pid;
             try {
-                Thread.sleep(250);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                return false;
+                session.serverHandle = ProcessHandle.of(pid).orElse(null);
+            } catch (Exception ignored) {
+                session.serverHandle = null;
             }
+            logger.info("[Spawn] {} reported Java PID {}", session.name, pid);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (TimeoutException te) {
+            logger.warn("[Spawn] Timed out waiting for PID file {} for {}. See {}", pidFile, session.name, spawnLog);
+            return false;
+        } catch (ExecutionException | CancellationException ex) {
+            // Watcher closed by proxy shutdown
+            return false;
+        } finally {
+            discovered.cancel(false);
         }
-        logger.warn("[Spawn] Timed out waiting for PID file {} for {}. See {}", pidFile, session.name, spawnLog);
-        return false;
     }
 
 
@@ -1016,25 +1427,31 @@ public class DynamicLoader {
     }
 
     private boolean connectLeader(Player leaderPlayer, ServerSession session, boolean sendSuccessMessage) {
-        boolean ok = waitForBackendAndConnect(leaderPlayer, session.name, Duration.ofSeconds(90));
+        boolean ok = session.lifecycle.await(SessionState.PINGABLE, Duration.ofSeconds(90))
+                && connectWhenPingable(leaderPlayer, session);
         if (!ok) {
-            leaderPlayer.sendMessage(Component.text("❌ Failed to connect — server took too long.", NamedTextColor.RED));
-            cleanupSession(leaderPlayer, session);
+            failLeaderConnect(leaderPlayer, session);
             return false;
         }
 
-        session.connecting = false;
         if (platformInitialized.add(session.name)) {
             ensureSpawnPlatformViaRcon(session);
         }
+        session.lifecycle.advance(SessionState.ACTIVE);
+        session.keepWorld = true;
 
-        ensurePlayerSupported(session, leaderPlayer.getUsername());
+        ensurePlayerSupported(session, leaderPlayer);
         if (sendSuccessMessage) {
             leaderPlayer.sendMessage(Component.text("✅ Connected to your personal Earth!", NamedTextColor.GREEN));
         }
         return true;
     }
 
+    private void failLeaderConnect(Player leaderPlayer, ServerSession session) {
+        leaderPlayer.sendMessage(Component.text("❌ Failed to connect — server took too long.", NamedTextColor.RED));
+        cleanupSession(leaderPlayer, session);
+    }
+
     private void pullPartyMembers(ServerSession session) {
         for (UUID memberId : session.members) {
             if (session.leader != null && memberId.equals(session.leader)) {
@@ -1046,35 +1463,71 @@ public class DynamicLoader {
         }
     }
 
-    private boolean waitForBackendAndConnect(Player player, String serverName, Duration timeout) {
-        long deadline = System.nanoTime() + timeout.toNanos();
-        while (System.nanoTime() < deadline) {
-            try {
-                Optional<RegisteredServer> opt = proxy.getServer(serverName);
-                if (opt.isEmpty()) {
-                    Thread.sleep(500);
-                    continue;
-                }
-                RegisteredServer server = opt.get();
-                server.ping().join();
-                boolean alreadyThere = player.getCurrentServer()
-                        .map(cs -> cs.getServerInfo().getName().equalsIgnoreCase(serverName))
-                        .orElse(false);
-                if (!alreadyThere) {
-                    player.createConnectionRequest(server).connectWithIndication().join();
-                }
+    /** Send {@code player} to a backend that already answers pings, retrying a refused connection briefly. */
+    private boolean connectWhenPingable(Player player, ServerSession session) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            if (!session.lifecycle.isLive()) {
+                return false;
+            }
+            if (isOnSessionServer(player, session)) {
                 return true;
+            }
+            Optional<RegisteredServer> server = proxy.getServer(session.name);
+            if (server.isPresent()) {
+                try {
+                    player.createConnectionRequest(server.get()).connectWithIndication().join();
+                    return true;
+                } catch (Exception ignored) {
+                }
+            }
+            try {
+                Thread.sleep(750);
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
                 return false;
-            } catch (Exception ignored) {
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wait for a freshly registered backend to reach PINGABLE. The log watcher normally gets
+     * there first; a status ping every few seconds covers a log that cannot be followed.
+     */
+    private boolean pingUntilReachable(ServerSession session, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long nextPing = System.nanoTime() + FALLBACK_PING_INTERVAL.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (shuttingDown.get() || !session.lifecycle.isLive()) {
+                return false;
+            }
+            if (!isServerProcessAlive(session)) {
+                logger.warn("[Spawn] {} exited during boot. See {}", session.name,
+                        session.folder.resolve(ServerSpawner.LOG_FILE_NAME));
+                return false;
+            }
+            boolean reached = session.lifecycle.await(SessionState.PINGABLE, Duration.ofSeconds(1));
+            if (!reached && System.nanoTime() >= nextPing) {
+                nextPing = System.nanoTime() + FALLBACK_PING_INTERVAL.toNanos();
                 try {
-                    Thread.sleep(750);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    return false;
+                    proxy.getServer(session.name).orElseThrow().ping().join();
+                    session.lifecycle.advance(SessionState.PINGABLE);
+                    if (session.rconAnnounced) {
+                        session.lifecycle.advance(SessionState.RCON_READY);
+                    }
+                    reached = session.lifecycle.reached(SessionState.PINGABLE);
+                } catch (Exception ignored) {
                 }
             }
+            if (reached) {
+                if (session.prebakedWorld) {
+                    // A restored world already has its platform, but Paper opens RCON only after Done:
+                    // mark it ready once RCON really is, from the log line or a successful RCON auth
+                    session.lifecycle.when(SessionState.RCON_READY)
+                            .thenRun(() -> session.lifecycle.advance(SessionState.PLATFORM_READY));
+                }
+                return true;
+            }
         }
         return false;
     }
@@ -1178,8 +1631,8 @@ public class DynamicLoader {
             case LEAVE -> parties.leave(p.getUniqueId());
             case DISBAND -> {
                 if (parties.isLeader(p.getUniqueId())) {
-                    ServerSession s = sessionsByLeader.remove(p.getUniqueId());
-                    if (s != null) runAsync(() -> cleanupSession(null, s));
+                    ServerSession s = sessions.byLeader(p.getUniqueId());
+                    if (s != null && sessions.remove(s)) runAsync(() -> cleanupSession(null, s));
                     parties.disband(p.getUniqueId());
                 } else {
                     p.sendMessage(Component.text("Only the leader can disband.", NamedTextColor.RED));
@@ -1198,29 +1651,20 @@ public class DynamicLoader {
             cleanupSession(null, session);
             return;
         }
-        try {
-            Path workdir = Paths.get("").toAbsolutePath();
-            Path spawner = workdir.resolve("spawn_server.py");
-            Path spawnLog = workdir.resolve("spawn_server.log");
-
-            ProcessBuilder pb = new ProcessBuilder(pythonExecutable, spawner.toString(),
-                    session.leader.toString(),
-                    String.valueOf(session.port),
-                    "--rcon-port", String.valueOf(session.rconPort),
-                    "--rcon-pass", session.rconPass,
-                    "--server-name", session.name
-            );
-            pb.redirectErrorStream(true);
-            pb.redirectOutput(ProcessBuilder.Redirect.appendTo(spawnLog.toFile()));
-            pb.directory(workdir.toFile());
-            session.process = pb.start();
+        SpawnScheduler.Permit permit = admitPlayerSpawn(leaderPlayer, session);
+        if (permit == null) {
+            return;
+        }
+        try (permit) {
+            Path spawnLog = session.folder.resolve(ServerSpawner.LOG_FILE_NAME);
 
-            if (!captureServerPid(session, spawnLog, Duration.ofSeconds(90))) {
+            if (!launchBackend(session, false)) {
                 logger.warn("[Session] PID capture failed for {}. See {}", session.name, spawnLog);
                 killProcess(session.process, 0, 500);
                 cleanupSession(null, session);
                 return;
             }
+            session.lifecycle.advance(SessionState.PID_KNOWN);
 
             if (shuttingDown.get()) {
                 logger.info("[Session] Shutdown triggered; terminating {}", session.name);
@@ -1230,11 +1674,19 @@ public class DynamicLoader {
             }
 
             proxy.registerServer(session.info);
+            session.lifecycle.advance(SessionState.REGISTERED);
             if (shuttingDown.get()) {
                 logger.info("[Session] Shutdown triggered before connect {}; cleaning up", session.name);
                 cleanupSession(null, session);
                 return;
             }
+            if (!pingUntilReachable(session, Duration.ofSeconds(90))) {
+                clearSessionCooldown(session.leader);
+                failLeaderConnect(leaderPlayer, session);
+                return;
+            }
+            // The boot is over; the slot is not needed for connecting and preparing the player
+            permit.close();
             if (!connectLeader(leaderPlayer, session, true)) {
                 clearSessionCooldown(session.leader);
                 return;
@@ -1251,35 +1703,26 @@ public class DynamicLoader {
         }
     }
 
-    private void spawnAndConnectThenRun(Player leaderPlayer, ServerSession session, String playerCmd) {
+    private void spawnAndConnectThenRun(Player leaderPlayer, ServerSession session, String playerCmd, String address) {
         if (shuttingDown.get()) {
             logger.info("[Session] Skipping spawn for {} (shutdown in progress)", session.name);
             cleanupSession(null, session);
             return;
         }
-        try {
-            Path workdir = Paths.get("").toAbsolutePath();
-            Path spawner = workdir.resolve("spawn_server.py");
-            Path spawnLog = workdir.resolve("spawn_server.log");
-
-            ProcessBuilder pb = new ProcessBuilder(pythonExecutable, spawner.toString(),
-                    session.leader.toString(),
-                    String.valueOf(session.port),
-                    "--rcon-port", String.valueOf(session.rconPort),
-                    "--rcon-pass", session.rconPass,
-                    "--server-name", session.name
-            );
-            pb.redirectErrorStream(true);
-            pb.redirectOutput(ProcessBuilder.Redirect.appendTo(spawnLog.toFile()));
-            pb.directory(workdir.toFile());
-            session.process = pb.start();
+        SpawnScheduler.Permit permit = admitPlayerSpawn(leaderPlayer, session);
+        if (permit == null) {
+            return;
+        }
+        try (permit) {
+            Path spawnLog = session.folder.resolve(ServerSpawner.LOG_FILE_NAME);
 
-            if (!captureServerPid(session, spawnLog, Duration.ofSeconds(90))) {
+            if (!launchBackend(session, false)) {
                 logger.warn("[Session] PID capture failed for {}. See {}", session.name, spawnLog);
                 killProcess(session.process, 0, 500);
                 cleanupSession(null, session);
                 return;
             }
+            session.lifecycle.advance(SessionState.PID_KNOWN);
 
             if (shuttingDown.get()) {
                 logger.info("[Session] Shutdown triggered; terminating {}", session.name);
@@ -1289,11 +1732,19 @@ public class DynamicLoader {
             }
 
             proxy.registerServer(session.info);
+            session.lifecycle.advance(SessionState.REGISTERED);
             if (shuttingDown.get()) {
                 logger.info("[Session] Shutdown triggered before queued command on {}; cleaning up", session.name);
                 cleanupSession(null, session);
                 return;
             }
+            if (!pingUntilReachable(session, Duration.ofSeconds(90))) {
+                clearSessionCooldown(session.leader);
+                failLeaderConnect(leaderPlayer, session);
+                return;
+            }
+            // The boot is over; the slot is not needed for connecting and preparing the player
+            permit.close();
 
             if (!connectLeader(leaderPlayer, session, false)) {
                 clearSessionCooldown(session.leader);
@@ -1302,7 +1753,10 @@ public class DynamicLoader {
 
             logger.info("[Session] Server {} ready for leader {} (queued command)", session.name, session.leader);
             pullPartyMembers(session);
-            scheduleBackendCommandAfterConnect(leaderPlayer, session, playerCmd);
+            PlaceSnapshots.Landing landing = session.landing;
+            if (landing == null || !landAt(leaderPlayer, session, landing, address)) {
+                scheduleBackendCommandAfterConnect(leaderPlayer, session, playerCmd);
+            }
 
         } catch (Exception e) {
             logger.error("Spawn/connect failed for {}", leaderPlayer.getUsername(), e);
@@ -1312,6 +1766,26 @@ public class DynamicLoader {
         }
     }
 
+    /** Wait for a boot slot ahead of any warm refills; on timeout the session is abandoned. */
+    private SpawnScheduler.Permit admitPlayerSpawn(Player leaderPlayer, ServerSession session) {
+        // An idle session is the cheapest thing to give up for a player who is waiting
+        evictLingering();
+        SpawnScheduler.Permit permit = null;
+        try {
+            permit = spawnScheduler.acquire(PLAYER_SPAWN_ADMISSION_TIMEOUT);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        if (permit == null) {
+            logger.warn("[Session] No boot slot for {} within {}s ({} boots active)", session.name,
+                    PLAYER_SPAWN_ADMISSION_TIMEOUT.toSeconds(), spawnScheduler.activeBoots());
+            leaderPlayer.sendMessage(Component.text("The host is busy starting other worlds; please try /earth again shortly.", NamedTextColor.RED));
+            clearSessionCooldown(session.leader);
+            cleanupSession(null, session);
+        }
+        return permit;
+    }
+
     private boolean tryConnect(Player player, String serverName, int attempts, long backoffMs) {
         for (int i = 0; i < attempts; i++) {
             try {
@@ -1338,8 +1812,13 @@ public class DynamicLoader {
     }
 
     private void connectToExistingServer(Player player, ServerSession session) {
-        if (session.connecting) {
+        thaw(session);
+        if (!session.lifecycle.reached(SessionState.ACTIVE)) {
             player.sendMessage(Component.text("⏳ Your personal Earth is still starting up...", NamedTextColor.YELLOW));
+            // Follow the player in as soon as the leader is connected
+            UUID playerId = player.getUniqueId();
+            session.lifecycle.when(SessionState.ACTIVE).thenRun(() ->
+                    proxy.getPlayer(playerId).ifPresent(target -> connectToExistingServer(target, session)));
             return;
         }
         // Skip reconnect if already there (prevents "You are already connected" spam)
@@ -1350,68 +1829,99 @@ public class DynamicLoader {
         );
     }
 
-    private void scheduleBackendCommandAfterConnect(Player player, ServerSession session, String playerCommand) {
-        executor.submit(() -> {
-            try {
-                Thread.sleep(4_000);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                return;
-            }
-
-            if (!waitForPlayerOnServer(player, session, Duration.ofSeconds(45))) {
-                logger.warn("Player {} did not reach {} in time; showing fallback", player.getUsername(), session.name);
-                showClickableFallback(player, playerCommand);
-                return;
-            }
+    private record PendingCommand(ServerSession session, String chatCommand, String playerCommand) {}
 
+    /**
+     * Run {@code playerCommand} as the player on the session server: right away if they are
+     * already there, otherwise as soon as their connection to it completes.
+     */
+    private void scheduleBackendCommandAfterConnect(Player player, ServerSession session, String playerCommand) {
         String safeCommand = sanitizeForSpoof(playerCommand);
         if (safeCommand.isBlank()) {
-        logger.warn("Sanitized command for {} came back empty; showing fallback", player.getUsername());
-        showClickableFallback(player, playerCommand);
-        return;
+            logger.warn("Sanitized command for {} came back empty; showing fallback", player.getUsername());
+            showClickableFallback(player, playerCommand);
+            return;
         }
 
-        String chatCommand = "/" + safeCommand;
         UUID playerId = player.getUniqueId();
-        proxy.getScheduler().buildTask(this, () ->
-            proxy.getPlayer(playerId).ifPresentOrElse(
-                target -> target.spoofChatInput(chatCommand),
-                () -> logger.warn("Player {} went offline before spoofing {}", playerId, chatCommand)
-            )
-        ).schedule();
+        PendingCommand pending = new PendingCommand(session, "/" + safeCommand, playerCommand);
+        pendingCommands.compute(playerId, (id, queue) -> {
+            Queue<PendingCommand> q = queue != null ? queue : new ConcurrentLinkedQueue<>();
+            q.add(pending);
+            return q;
         });
+        // The player may already be there, or may have arrived while the command was being queued
+        dispatchPendingCommands(player);
+        proxy.getScheduler().buildTask(this, () -> expirePendingCommand(playerId, pending))
+                .delay(PENDING_COMMAND_TIMEOUT)
+                .schedule();
     }
 
-    private boolean waitForPlayerOnServer(Player player, ServerSession session, Duration timeout) {
-        long deadline = System.nanoTime() + timeout.toNanos();
-        while (System.nanoTime() < deadline) {
-            if (isOnSessionServer(player, session)) {
-                return true;
-            }
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                return false;
+    private void dispatchPendingCommands(Player player) {
+        UUID playerId = player.getUniqueId();
+        Queue<PendingCommand> queue = pendingCommands.get(playerId);
+        if (queue == null) {
+            return;
+        }
+        for (PendingCommand pending : queue) {
+            if (isOnSessionServer(player, pending.session()) && queue.remove(pending)) {
+                String chatCommand = pending.chatCommand();
+                proxy.getScheduler().buildTask(this, () ->
+                        proxy.getPlayer(playerId).ifPresentOrElse(
+                                target -> runAsPlayer(target, pending.session(), chatCommand),
+                                () -> logger.warn("Player {} went offline before spoofing {}", playerId, chatCommand)
+                        )
+                ).schedule();
             }
         }
-        return false;
+        pendingCommands.computeIfPresent(playerId, (id, q) -> q.isEmpty() ? null : q);
+    }
+
+    /** Typed over the control channel when the backend has the companion, otherwise as chat. */
+    private void runAsPlayer(Player player, ServerSession session, String chatCommand) {
+        if (session.companion && sendControl(player, session, BackendChannel.forCommandLine(chatCommand.substring(1)))) {
+            return;
+        }
+        player.spoofChatInput(chatCommand);
+    }
+
+    /** Send a control message over {@code player}'s connection, if it is to {@code session}'s server. */
+    private boolean sendControl(Player player, ServerSession session, byte[] message) {
+        return player.getCurrentServer()
+                .filter(cs -> cs.getServerInfo().getName().equalsIgnoreCase(session.name))
+                .map(cs -> cs.sendPluginMessage(CONTROL_CHANNEL, message))
+                .orElse(false);
+    }
+
+    private void expirePendingCommand(UUID playerId, PendingCommand pending) {
+        Queue<PendingCommand> queue = pendingCommands.get(playerId);
+        if (queue == null || !queue.remove(pending)) {
+            return;
+        }
+        pendingCommands.computeIfPresent(playerId, (id, q) -> q.isEmpty() ? null : q);
+        proxy.getPlayer(playerId).ifPresent(player -> {
+            logger.warn("Player {} did not reach {} in time; showing fallback", player.getUsername(), pending.session().name);
+            showClickableFallback(player, pending.playerCommand());
+        });
     }
 
     private boolean waitForRcon(ServerSession session, Duration timeout) {
+        if (session.lifecycle.reached(SessionState.RCON_READY)) {
+            return true;
+        }
         long deadline = System.nanoTime() + timeout.toNanos();
         long backoff = 150;
-        while (System.nanoTime() < deadline) {
-            try (RconClient rc = new RconClient("127.0.0.1", session.rconPort, session.rconPass)) {
-                rc.connect();
-                rc.command("list");
+        while (System.nanoTime() < deadline && session.lifecycle.isLive()) {
+            try {
+                session.rcon(rconEngine).command("list");
+                session.lifecycle.advance(SessionState.RCON_READY);
                 return true;
             } catch (Exception e) {
-                try {
-                    Thread.sleep(backoff);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
+                // Between probes, the log watcher may announce RCON first
+                if (session.lifecycle.await(SessionState.RCON_READY, Duration.ofMillis(backoff))) {
+                    return true;
+                }
+                if (Thread.currentThread().isInterrupted()) {
                     return false;
                 }
                 backoff = Math.min(1_500, backoff * 2);
@@ -1420,28 +1930,36 @@ public class DynamicLoader {
         return false;
     }
 
-    private boolean waitForPlayerEntity(ServerSession session, String playerName, Duration timeout) {
+    /**
+     * Wait until {@code player}'s entity exists on the session server. The companion reports it
+     * directly; only a backend without one is polled over RCON.
+     */
+    private boolean waitForPlayerEntity(ServerSession session, Player player, Duration timeout) {
+        CompletableFuture<Void> spawned = session.entitySpawned(player.getUniqueId());
         long deadline = System.nanoTime() + timeout.toNanos();
         long backoff = 200;
-        String command = "data get entity " + playerName + " Pos[0]";
+        String command = "data get entity " + player.getUsername() + " Pos[0]";
         while (System.nanoTime() < deadline) {
-            try (RconClient rc = new RconClient("127.0.0.1", session.rconPort, session.rconPass)) {
-                rc.connect();
-                String response = rc.command(command);
-                if (response != null && !response.toLowerCase(Locale.ROOT).contains("no entity")) {
-                    return true;
+            if (!session.companion) {
+                try {
+                    RconClient.Reply response = session.rcon(rconEngine).command(command);
+                    if (response != null && !response.text().toLowerCase(Locale.ROOT).contains("no entity")) {
+                        return true;
+                    }
+                } catch (Exception ignored) {
                 }
-            } catch (Exception ignored) {
             }
             try {
-                Thread.sleep(backoff);
+                spawned.get(backoff, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException | ExecutionException ignored) {
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
                 return false;
             }
             backoff = Math.min(2_000, backoff + 200);
         }
-        return false;
+        return spawned.isDone();
     }
 
     private boolean sendRconWithRetry(ServerSession session, String consoleCommand, int attempts, long firstBackoffMs) {
@@ -1451,9 +1969,8 @@ public class DynamicLoader {
 
         long backoff = firstBackoffMs;
         for (int i = 0; i < attempts; i++) {
-            try (RconClient rc = new RconClient("127.0.0.1", session.rconPort, session.rconPass)) {
-                rc.connect();
-                rc.command(consoleCommand);
+            try {
+                session.rcon(rconEngine).command(consoleCommand);
                 return true;
             } catch (Exception e) {
                 if (i == attempts - 1) {
@@ -1472,6 +1989,43 @@ public class DynamicLoader {
         return false;
     }
 
+    /**
+     * Run {@code commands} in order over the session's one RCON connection, resending only the
+     * ones that failed. Returns true once every command has been answered.
+     */
+    private boolean sendRconBatchWithRetry(ServerSession session, List<String> commands, int attempts, long firstBackoffMs) {
+        if (session.rconPort <= 0 || session.rconPass == null) {
+            return false;
+        }
+
+        List<String> remaining = commands;
+        long backoff = firstBackoffMs;
+        for (int i = 0; i < attempts; i++) {
+            try {
+                remaining = session.rcon(rconEngine).batch(remaining).stream()
+                        .filter(result -> !result.ok())
+                        .map(RconClient.Result::command)
+                        .toList();
+                if (remaining.isEmpty()) {
+                    return true;
+                }
+            } catch (IOException ignored) {
+            }
+            if (i == attempts - 1) {
+                break;
+            }
+            long jitter = ThreadLocalRandom.current().nextInt(60);
+            try {
+                Thread.sleep(backoff + jitter);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoff = Math.min(2_000, backoff * 2);
+        }
+        return false;
+    }
+
     private void showClickableFallback(Player player, String playerCommand) {
         String safeCommand = sanitizeForSpoof(playerCommand);
         if (safeCommand.isBlank()) {
@@ -1487,22 +2041,34 @@ public class DynamicLoader {
         ).schedule();
     }
 
+    private PortAllocator.Lease leasePorts(Player player) {
+        try {
+            return portAllocator.acquire();
+        } catch (IOException ex) {
+            logger.warn("[Session] Unable to lease ports for {}: {}", player.getUsername(), ex.getMessage());
+            player.sendMessage(Component.text("All Earth servers are busy right now; please try again shortly.", NamedTextColor.RED));
+            return null;
+        }
+    }
+
     private static String generateRconPassword() {
         return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
     }
 
-    private void ensureSpawnPlatformViaRcon(ServerSession session) {
+    private boolean ensureSpawnPlatformViaRcon(ServerSession session) {
         int attempts = 3;
         long backoff = 500;
         for (int i = 1; i <= attempts; i++) {
             if (!waitForRcon(session, Duration.ofSeconds(30))) {
                 logger.warn("Unable to initialize platform for {} — RCON unavailable (attempt {}/{})", session.name, i, attempts);
             } else {
-                boolean fill = sendRconWithRetry(session, "fill -5 180 -5 5 180 5 glass", 12, 200);
-                boolean spawn = sendRconWithRetry(session, "setworldspawn 0 181 0", 12, 200);
-                if (fill && spawn) {
+                if (sendRconBatchWithRetry(session,
+                        List.of("fill -5 180 -5 5 180 5 glass", "setworldspawn 0 181 0"),
+                        12,
+                        200)) {
                     logger.info("[Platform] Spawn platform initialized for {}", session.name);
-                    return;
+                    session.lifecycle.advance(SessionState.PLATFORM_READY);
+                    return true;
                 }
                 logger.warn("Spawn platform commands failed for {} on attempt {}/{}", session.name, i, attempts);
             }
@@ -1515,28 +2081,55 @@ public class DynamicLoader {
             backoff *= 2;
         }
         logger.warn("Failed to initialize spawn platform for {} after {} attempts", session.name, attempts);
+        return false;
     }
 
-    private void ensurePlayerSupported(ServerSession session, String playerName) {
-        if (!waitForRcon(session, Duration.ofSeconds(30))) {
+    /** Bake a freshly platformed warm world into the void world snapshot used by later warm spawns. */
+    private void captureVoidWorldSnapshot(ServerSession session) {
+        // A server pre-loaded at a destination carries its regions, which do not belong in the void world
+        if (legacySpawner || session.leader != null || session.place != null || !spawner.needsVoidWorldSnapshot()) {
+            return;
+        }
+        if (!sendRconWithRetry(session, "save-off", 3, 200)) {
+            return;
+        }
+        try {
+            if (sendRconWithRetry(session, "save-all flush", 3, 200)) {
+                spawner.captureVoidWorld(session.name);
+            }
+        } catch (IOException ex) {
+            logger.warn("[World] Void world snapshot from {} failed: {}", session.name, ex.getMessage());
+        } finally {
+            sendRconWithRetry(session, "save-on", 3, 200);
+        }
+    }
+
+    private void ensurePlayerSupported(ServerSession session, Player player) {
+        String playerName = player.getUsername();
+        if (!session.companion && !waitForRcon(session, Duration.ofSeconds(30))) {
             logger.warn("Unable to ensure support for {} on {} — RCON unavailable", playerName, session.name);
             return;
         }
 
-        if (!waitForPlayerEntity(session, playerName, Duration.ofSeconds(20))) {
+        if (!waitForPlayerEntity(session, player, Duration.ofSeconds(20))) {
             logger.warn("Entity for {} not ready on {} when attempting support", playerName, session.name);
             return;
         }
 
-        boolean support = sendRconWithRetry(session,
-                "execute as " + playerName + " at @s if block ~ ~-1 ~ air run setblock ~ ~-1 ~ glass",
-                6,
-                200);
-        boolean nudge = sendRconWithRetry(session,
-                "execute as " + playerName + " at @s run tp @s ~ ~0.2 ~",
+        // The companion may have introduced itself while we waited
+        if (session.companion && sendControl(player, session, BackendChannel.platform())) {
+            return;
+        }
+        if (!waitForRcon(session, Duration.ofSeconds(30))) {
+            logger.warn("Unable to ensure support for {} on {} — RCON unavailable", playerName, session.name);
+            return;
+        }
+        boolean supported = sendRconBatchWithRetry(session,
+                List.of("execute as " + playerName + " at @s if block ~ ~-1 ~ air run setblock ~ ~-1 ~ glass",
+                        "execute as " + playerName + " at @s run tp @s ~ ~0.2 ~"),
                 6,
                 200);
-        if (!support || !nudge) {
+        if (!supported) {
             logger.warn("Support commands for {} on {} did not complete", playerName, session.name);
         }
     }
@@ -1547,6 +2140,13 @@ public class DynamicLoader {
     public void onServerConnected(ServerConnectedEvent event) {
         Player player = event.getPlayer();
         String serverName = event.getServer().getServerInfo().getName();
+        if (sessions.markOnline(player.getUniqueId())) {
+            resumeLingering(sessions.byMember(player.getUniqueId()));
+        }
+        ServerSession vacated = sessions.movePlayer(player.getUniqueId(), serverName);
+        if (vacated != null) {
+            vacated.emptySince = System.nanoTime();
+        }
 
         // (Re)give the client-side Navigator item (slot 9) with retries to beat backend inventory sync
         if (nav != null) nav.giveWithRetries(player);
@@ -1569,13 +2169,12 @@ public class DynamicLoader {
             );
         } else if (serverName.startsWith("voxelearth-")) {
             // place support under this player too (handles direct joins and party pulls)
-            sessionsByLeader.values().stream()
-                    .filter(s -> s.name.equalsIgnoreCase(serverName))
-                    .findFirst()
-                    .ifPresent(s -> executor.submit(() -> {
-                        try { Thread.sleep(300); } catch (InterruptedException ignored) {}
-                        ensurePlayerSupported(s, player.getUsername());
-                    }));
+            ServerSession s = sessions.byServer(serverName);
+            if (s != null) {
+                s.emptySince = 0;
+                s.expectEntity(player.getUniqueId());
+                executor.submit(() -> ensurePlayerSupported(s, player));
+            }
 
             player.sendMessage(
                     Component.text("🌍 Welcome to your ", NamedTextColor.GOLD)
@@ -1591,22 +2190,211 @@ public class DynamicLoader {
         }
     }
 
+    @Subscribe
+    public void onServerPostConnect(ServerPostConnectEvent event) {
+        dispatchPendingCommands(event.getPlayer());
+    }
+
+    @Subscribe
+    public void onPluginMessage(PluginMessageEvent event) {
+        if (!CONTROL_CHANNEL.equals(event.getIdentifier())) {
+            return;
+        }
+        // Never relayed: clients must not drive the companion or see its reports
+        event.setResult(PluginMessageEvent.ForwardResult.handled());
+        if (!(event.getSource() instanceof ServerConnection backend)) {
+            return;
+        }
+        String serverName = backend.getServerInfo().getName();
+        Player player = backend.getPlayer();
+        ServerSession session = sessions.byServer(serverName);
+        if (session == null) {
+            return;
+        }
+        BackendChannel.decode(event.getData()).ifPresent(message -> {
+            switch (message) {
+                case BackendChannel.Event.WorldReady ready -> {
+                    if (ready.protocol() != BackendChannel.PROTOCOL_VERSION) {
+                        logger.warn("[Session] Companion on {} speaks protocol {}, expected {}; ignoring it",
+                                serverName, ready.protocol(), BackendChannel.PROTOCOL_VERSION);
+                    } else if (!session.companion) {
+                        session.companion = true;
+                        logger.info("[Session] Companion plugin active on {}", serverName);
+                    }
+                }
+                case BackendChannel.Event.EntitySpawned spawned -> {
+                    if (session.companion) {
+                        session.entitySpawned(player.getUniqueId()).complete(null);
+                    }
+                }
+                case BackendChannel.Event.VisitFinished visit -> {
+                    CompletableFuture<BackendChannel.Event.VisitFinished> bake = bakeVisits.remove(player.getUniqueId());
+                    if (bake != null) {
+                        bake.complete(visit);
+                    }
+                    player.sendActionBar(Component.text("Arrived at " + visit.address(), NamedTextColor.GREEN));
+                }
+            }
+        });
+    }
+
     @Subscribe
     public void onPlayerDisconnect(DisconnectEvent event) {
         Player player = event.getPlayer();
         UUID playerId = player.getUniqueId();
-        UUID leader = leaderOfMember.getOrDefault(playerId, playerId);
-        ServerSession session = sessionsByLeader.get(leader);
-        if (session == null) return;
-
-        boolean someoneOnline = session.members.stream().anyMatch(id -> proxy.getPlayer(id).isPresent());
-        if (!someoneOnline) {
-            logger.info("Cleaning up dynamic server for party leader {}", leader);
-            sessionsByLeader.remove(leader);
+        pendingCommands.remove(playerId);
+        ServerSession member = sessions.byMember(playerId);
+        if (member != null) {
+            member.entities.remove(playerId);
+        }
+        ServerSession vacated = sessions.movePlayer(playerId, null);
+        if (vacated != null) {
+            vacated.emptySince = System.nanoTime();
+        }
+
+        ServerSession session = sessions.markOffline(playerId);
+        if (session == null) {
+            return;
+        }
+        if (!SESSION_LINGER.isZero() && session.lifecycle.reached(SessionState.ACTIVE)) {
+            startLingering(session);
+        } else if (sessions.remove(session)) {
+            logger.info("Cleaning up dynamic server for party leader {}", session.leader);
             runAsync(() -> cleanupSession(player, session));
         }
     }
 
+    /** A returning member of an idle session skips the lobby and lands back in their world. */
+    @Subscribe
+    public void onChooseInitialServer(PlayerChooseInitialServerEvent event) {
+        ServerSession session = sessions.byMember(event.getPlayer().getUniqueId());
+        if (session == null || session.idleSince == 0 || !session.lifecycle.reached(SessionState.ACTIVE)) {
+            return;
+        }
+        thaw(session);
+        proxy.getServer(session.name).ifPresent(event::setInitialServer);
+    }
+
+    private void freezeIdleSessions() {
+        if (!freezeIdle) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (ServerSession session : sessions.all()) {
+            long since = session.emptySince;
+            if (since != 0 && !session.frozen && now - since >= FREEZE_IDLE_AFTER.toNanos()
+                    && sessions.playersOnServer(session) == 0) {
+                freeze(session);
+            }
+        }
+    }
+
+    /**
+     * Stop an empty session's JVM in place. It keeps its world and memory and stays registered
+     * with its party, but leaves the proxy so nothing pings or connects into a stopped process.
+     */
+    private void freeze(ServerSession session) {
+        session.freezeLock.lock();
+        try {
+            ProcessHandle handle = session.serverHandle;
+            if (session.frozen || !session.lifecycle.reached(SessionState.ACTIVE)
+                    || sessions.playersOnServer(session) > 0 || handle == null || !handle.isAlive()) {
+                return;
+            }
+            safeUnregister(session.info);
+            session.closeRcon();
+            if (!ProcessFreezer.suspend(handle)) {
+                logger.warn("[Session] Could not suspend {}; leaving it running", session.name);
+                proxy.registerServer(session.info);
+                return;
+            }
+            session.frozen = true;
+            logger.info("[Session] Froze {} (PID {}) after {}s without players", session.name, handle.pid(),
+                    FREEZE_IDLE_AFTER.toSeconds());
+        } finally {
+            session.freezeLock.unlock();
+        }
+    }
+
+    /** Continue a frozen session's JVM and put it back on the proxy; a no-op while it runs. */
+    private void thaw(ServerSession session) {
+        if (!session.frozen) {
+            return;
+        }
+        session.freezeLock.lock();
+        try {
+            if (!session.frozen) {
+                return;
+            }
+            long start = System.nanoTime();
+            if (!ProcessFreezer.resume(session.serverHandle)) {
+                logger.warn("[Session] Could not resume {}; its process may be gone", session.name);
+            }
+            session.frozen = false;
+            session.emptySince = System.nanoTime();
+            if (session.lifecycle.isLive() && !isRegistered(session.name)) {
+                proxy.registerServer(session.info);
+            }
+            logger.info("[Session] Thawed {} in {} ms", session.name,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            session.freezeLock.unlock();
+        }
+    }
+
+    private void startLingering(ServerSession session) {
+        long since = System.nanoTime();
+        session.idleSince = since;
+        lingering.remove(session);
+        lingering.addLast(session);
+        logger.info("[Session] {} is idle; keeping it for {}s", session.name, SESSION_LINGER.toSeconds());
+        try {
+            warmKeeper.schedule(() -> expireLingering(session, since), SESSION_LINGER.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+        }
+        evictLingering();
+    }
+
+    private void resumeLingering(ServerSession session) {
+        if (session != null && lingering.remove(session)) {
+            session.idleSince = 0;
+            logger.info("[Session] {} resumed", session.name);
+        }
+    }
+
+    private void expireLingering(ServerSession session, long since) {
+        if (session.idleSince == since && lingering.remove(session)) {
+            evictIdle(session, "idle for " + SESSION_LINGER.toSeconds() + "s");
+        }
+    }
+
+    /**
+     * Tear down idle sessions, least recently used first, while more than the budget are
+     * lingering. Low host memory costs one more per call; its memory only frees once the JVM exits.
+     */
+    private void evictLingering() {
+        while (lingering.size() > MAX_LINGERING_SESSIONS) {
+            ServerSession oldest = lingering.pollFirst();
+            if (oldest != null) {
+                evictIdle(oldest, "over the budget of " + MAX_LINGERING_SESSIONS + " idle sessions");
+            }
+        }
+        OptionalLong freeMb = HostResources.availableMemoryMb();
+        if (freeMb.isPresent() && freeMb.getAsLong() < BACKEND_MEMORY_MB + RESERVED_MEMORY_MB) {
+            ServerSession oldest = lingering.pollFirst();
+            if (oldest != null) {
+                evictIdle(oldest, "host memory low (" + freeMb.getAsLong() + " MB free)");
+            }
+        }
+    }
+
+    private void evictIdle(ServerSession session, String reason) {
+        if (sessions.remove(session)) {
+            logger.info("[Session] Evicting {}: {}", session.name, reason);
+            runAsync(() -> cleanupSession(null, session));
+        }
+    }
+
     @Subscribe
     public void onProxyShutdown(ProxyShutdownEvent event) {
         logger.info("Proxy shutdown detected. Stopping warm pool and cleaning dynamic servers.");
@@ -1628,6 +2416,11 @@ public class DynamicLoader {
         }
 
         cleanupAllSessions();
+        rconEngine.close();
+        serverLogs.close();
+        if (pidFiles != null) {
+            pidFiles.close();
+        }
         clearServersDirectory();
     }
 
@@ -1695,12 +2488,15 @@ public class DynamicLoader {
             return;
         }
         try {
+            // onExit() rather than waitFor(): Process.waitFor waits on a monitor and would pin a virtual thread
             process.destroy();
-            if (process.waitFor(softMs, TimeUnit.MILLISECONDS)) {
+            try {
+                process.onExit().get(softMs, TimeUnit.MILLISECONDS);
                 return;
+            } catch (TimeoutException ignored) {
             }
             process.destroyForcibly();
-            process.waitFor(hardMs, TimeUnit.MILLISECONDS);
+            process.onExit().get(hardMs, TimeUnit.MILLISECONDS);
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
         } catch (Throwable ignored) {
@@ -1760,38 +2556,59 @@ public class DynamicLoader {
         }
     }
 
+    private boolean archivesWorld(ServerSession session) {
+        return !legacySpawner && spawner.worldCacheEnabled() && session.keepWorld
+                && session.leader != null && session.folder != null;
+    }
+
     private void cleanupSession(Player player, ServerSession session) {
         if (session == null) {
             return;
         }
-        if (!session.cleaned.compareAndSet(false, true)) {
+        if (!session.lifecycle.advance(SessionState.DRAINING)) {
             return;
         }
 
         try {
-            session.connecting = false;
+            session.stopFollowingLog();
+            // A stopped JVM cannot run its shutdown hooks
+            thaw(session);
+            boolean archive = archivesWorld(session);
+            if (archive) {
+                // SIGTERM saves too, but only within the grace period below
+                sendRconWithRetry(session, "save-all flush", 2, 200);
+            }
+            session.closeRcon();
             terminateServerProcess(session);
             killProcess(session.process, 3_000, 4_000);
             safeUnregister(session.info);
+            if (archive) {
+                try {
+                    spawner.archiveWorld(session.leader, session.folder);
+                } catch (IOException ex) {
+                    logger.warn("[World] Could not archive the world of {}: {}", session.leader, ex.getMessage());
+                }
+            }
+            if (!legacySpawner && session.folder != null) {
+                spawner.releaseSharedCache(session.folder);
+            }
             deleteTreeWithRetries(session.folder);
         } catch (Throwable t) {
             logger.error("Error cleaning up server {}", session.name, t);
         } finally {
+            // The JVM is gone (or as gone as it will get), so its ports can be handed out again
+            portAllocator.release(session.ports);
+            session.ports = null;
+            sessions.remove(session);
             if (session.leader != null) {
-                sessionsByLeader.remove(session.leader, session);
                 visitRadius.remove(session.leader);
                 moveRadius.remove(session.leader);
             }
-            for (UUID member : session.members) {
-                if (session.leader != null) {
-                    leaderOfMember.remove(member, session.leader);
-                } else {
-                    leaderOfMember.remove(member);
-                }
-            }
             session.members.clear();
+            lingering.remove(session);
             platformInitialized.remove(session.name);
             warmPool.remove(session);
+            session.lifecycle.advance(SessionState.CLEANED);
             if (session.leader == null) {
                 requestWarmTopUp();
             }
@@ -1800,7 +2617,7 @@ public class DynamicLoader {
 
     private void cleanupAllSessions() {
         Set<ServerSession> toClean = Collections.newSetFromMap(new ConcurrentHashMap<>());
-        toClean.addAll(sessionsByLeader.values());
+        toClean.addAll(sessions.all());
         toClean.addAll(warmPool);
 
         List<Callable<Void>> tasks = new ArrayList<>();
@@ -1831,8 +2648,8 @@ public class DynamicLoader {
         }
 
         warmPool.clear();
-        sessionsByLeader.clear();
-        leaderOfMember.clear();
+        sessions.clear();
+        lingering.clear();
         visitRadius.clear();
         moveRadius.clear();
         platformInitialized.clear();
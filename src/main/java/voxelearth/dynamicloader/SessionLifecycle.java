@@ -0,0 +1,87 @@
+package voxelearth.dynamicloader;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Current {@link SessionState} of one backend session plus a future per stage. Whoever drives
+ * the boot calls {@link #advance}; everyone else waits on {@link #when} or {@link #await}
+ * and is released the moment the stage is reached rather than on their next poll.
+ * Waiters on a live stage the session never reaches fail once it starts draining.
+ */
+public final class SessionLifecycle {
+
+    private final Map<SessionState, CompletableFuture<Void>> stages = new EnumMap<>(SessionState.class);
+    private volatile SessionState state = SessionState.SPAWNING;
+
+    public SessionLifecycle() {
+        for (SessionState s : SessionState.values()) {
+            stages.put(s, new CompletableFuture<>());
+        }
+        stages.get(SessionState.SPAWNING).complete(null);
+    }
+
+    public SessionState state() {
+        return state;
+    }
+
+    /** True once {@code stage} is reached; a draining session no longer counts as being at any live stage. */
+    public boolean reached(SessionState stage) {
+        SessionState current = state;
+        return current.compareTo(stage) >= 0 && (current.isLive() || !stage.isLive());
+    }
+
+    public boolean isLive() {
+        return state.isLive();
+    }
+
+    /**
+     * Move forward to {@code next}, completing it and every stage skipped on the way. Returns
+     * false if the session is already at or past {@code next}, which makes
+     * {@code advance(DRAINING)} a one-shot claim on teardown.
+     */
+    public boolean advance(SessionState next) {
+        CancellationException drained = null;
+        synchronized (this) {
+            if (state.compareTo(next) >= 0) {
+                return false;
+            }
+            state = next;
+        }
+        for (SessionState s : SessionState.values()) {
+            if (s.compareTo(next) > 0) break;
+            if (!next.isLive() && s.isLive()) {
+                // Live stages that were never reached will not be now
+                if (drained == null) drained = new CancellationException("session is shutting down");
+                stages.get(s).completeExceptionally(drained);
+            } else {
+                stages.get(s).complete(null);
+            }
+        }
+        return true;
+    }
+
+    /** Completes when {@code stage} is reached; fails if the session drains first. */
+    public CompletableFuture<Void> when(SessionState stage) {
+        return stages.get(stage).copy();
+    }
+
+    /** Block until {@code stage} is reached; false on timeout, interruption, or teardown. */
+    public boolean await(SessionState stage, Duration timeout) {
+        try {
+            stages.get(stage).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException | CancellationException ex) {
+            return false;
+        }
+    }
+}
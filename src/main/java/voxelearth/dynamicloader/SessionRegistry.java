@@ -0,0 +1,197 @@
+package voxelearth.dynamicloader;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Party sessions indexed by leader, by member and by backend server name, so event handlers
+ * find a player's session in constant time however many are live. Each session also keeps
+ * the set of its members currently online on the proxy, updated from connect and disconnect
+ * events rather than by asking the proxy about every member, and the set of players currently
+ * on its backend server.
+ *
+ * <p>A session is indexed under the server name it had when registered; warm sessions are
+ * renamed before adoption registers them.
+ */
+public class SessionRegistry<S> {
+
+    private static final class Entry<S> {
+        final S session;
+        final UUID leader;
+        final String serverKey;
+        final Set<UUID> members = ConcurrentHashMap.newKeySet();
+        final Set<UUID> online = ConcurrentHashMap.newKeySet();
+        final Set<UUID> present = ConcurrentHashMap.newKeySet(); // players on the session's server
+
+        Entry(S session, UUID leader, String serverKey) {
+            this.session = session;
+            this.leader = leader;
+            this.serverKey = serverKey;
+        }
+    }
+
+    private final Map<S, Entry<S>> entries = new ConcurrentHashMap<>();
+    private final Map<UUID, Entry<S>> byLeader = new ConcurrentHashMap<>();
+    private final Map<UUID, Entry<S>> byMember = new ConcurrentHashMap<>(); // includes leaders
+    private final Map<String, Entry<S>> byServer = new ConcurrentHashMap<>();
+    private final Map<UUID, Entry<S>> location = new ConcurrentHashMap<>(); // player -> session server they are on
+
+    /**
+     * Index {@code session} for {@code leader}. {@code isOnline} is asked once per member to seed
+     * the online set; later changes arrive through {@link #markOnline} and {@link #markOffline}.
+     * A previous session of the same leader is dropped from every index.
+     */
+    public void register(S session, UUID leader, String serverName, Collection<UUID> members, Predicate<UUID> isOnline) {
+        Entry<S> stale = entries.get(session);
+        if (stale != null) {
+            unindex(stale);
+        }
+        Entry<S> previous = byLeader.get(leader);
+        if (previous != null) {
+            unindex(previous);
+        }
+        Entry<S> entry = new Entry<>(session, leader, key(serverName));
+        entries.put(session, entry);
+        byLeader.put(leader, entry);
+        byServer.put(entry.serverKey, entry);
+        addMember(entry, leader, isOnline.test(leader));
+        for (UUID member : members) {
+            addMember(entry, member, isOnline.test(member));
+        }
+    }
+
+    /** Add {@code member} to a registered session; returns false if it is not (or no longer) registered. */
+    public boolean addMember(S session, UUID member, boolean online) {
+        Entry<S> entry = entries.get(session);
+        if (entry == null) {
+            return false;
+        }
+        addMember(entry, member, online);
+        return true;
+    }
+
+    private void addMember(Entry<S> entry, UUID member, boolean online) {
+        Entry<S> previous = byMember.put(member, entry);
+        if (previous != null && previous != entry) {
+            previous.members.remove(member);
+            previous.online.remove(member);
+        }
+        entry.members.add(member);
+        if (online) {
+            entry.online.add(member);
+        }
+    }
+
+    public S byLeader(UUID leader) {
+        return sessionOf(byLeader.get(leader));
+    }
+
+    /** Session {@code player} belongs to, as leader or member. */
+    public S byMember(UUID player) {
+        return sessionOf(byMember.get(player));
+    }
+
+    public S byServer(String serverName) {
+        return sessionOf(byServer.get(key(serverName)));
+    }
+
+    /** Record that {@code player} is online; returns false when they belong to no session. */
+    public boolean markOnline(UUID player) {
+        Entry<S> entry = byMember.get(player);
+        if (entry == null) {
+            return false;
+        }
+        entry.online.add(player);
+        return true;
+    }
+
+    /**
+     * Record that {@code player} went offline. Returns their session if they were its last
+     * online member, otherwise null.
+     */
+    public S markOffline(UUID player) {
+        Entry<S> entry = byMember.get(player);
+        if (entry == null) {
+            return null;
+        }
+        return entry.online.remove(player) && entry.online.isEmpty() ? entry.session : null;
+    }
+
+    /**
+     * Record that {@code player} is now on {@code serverName}, or has left the proxy when it is
+     * null. Returns the session whose server they left if nobody is on it any more.
+     */
+    public S movePlayer(UUID player, String serverName) {
+        Entry<S> target = serverName == null ? null : byServer.get(key(serverName));
+        Entry<S> previous = target == null ? location.remove(player) : location.put(player, target);
+        if (target != null) {
+            target.present.add(player);
+        }
+        if (previous == null || previous == target) {
+            return null;
+        }
+        return previous.present.remove(player) && previous.present.isEmpty() ? previous.session : null;
+    }
+
+    public int playersOnServer(S session) {
+        Entry<S> entry = entries.get(session);
+        return entry == null ? 0 : entry.present.size();
+    }
+
+    public int onlineCount(S session) {
+        Entry<S> entry = entries.get(session);
+        return entry == null ? 0 : entry.online.size();
+    }
+
+    public boolean isRegistered(S session) {
+        return entries.containsKey(session);
+    }
+
+    /** Drop {@code session} from every index; returns false if it was not registered. */
+    public boolean remove(S session) {
+        Entry<S> entry = entries.get(session);
+        if (entry == null) {
+            return false;
+        }
+        unindex(entry);
+        return true;
+    }
+
+    private void unindex(Entry<S> entry) {
+        entries.remove(entry.session, entry);
+        byLeader.remove(entry.leader, entry);
+        byServer.remove(entry.serverKey, entry);
+        for (UUID member : entry.members) {
+            byMember.remove(member, entry);
+        }
+        for (UUID player : entry.present) {
+            location.remove(player, entry);
+        }
+    }
+
+    public List<S> all() {
+        return List.copyOf(entries.keySet());
+    }
+
+    public void clear() {
+        entries.clear();
+        byLeader.clear();
+        byMember.clear();
+        byServer.clear();
+        location.clear();
+    }
+
+    private static String key(String serverName) {
+        return serverName.toLowerCase(Locale.ROOT);
+    }
+
+    private static <S> S sessionOf(Entry<S> entry) {
+        return entry == null ? null : entry.session;
+    }
+}
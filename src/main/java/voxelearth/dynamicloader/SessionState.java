@@ -0,0 +1,32 @@
+package voxelearth.dynamicloader;
+
+/**
+ * Stages a backend session moves through, in order. A session only ever moves forward;
+ * it may skip stages (a warm server restored from a baked world is platform-ready as soon
+ * as it answers pings), and it may drop to {@link #DRAINING} from any earlier stage.
+ */
+public enum SessionState {
+    /** Folder prepared, JVM launch in progress. */
+    SPAWNING,
+    /** The Paper JVM is running and its PID is known. */
+    PID_KNOWN,
+    /** Registered with Velocity under the session's server name. */
+    REGISTERED,
+    /** Answers status pings; players can be connected. */
+    PINGABLE,
+    /** RCON accepts commands. */
+    RCON_READY,
+    /** Spawn platform and world spawn are in place. */
+    PLATFORM_READY,
+    /** Owned by a leader whose connection went through. */
+    ACTIVE,
+    /** Teardown started; no further stage will be reached. */
+    DRAINING,
+    /** Process stopped, ports released, folder removed. */
+    CLEANED;
+
+    /** True for the stages a session passes through while it is still coming up or in use. */
+    public boolean isLive() {
+        return compareTo(DRAINING) < 0;
+    }
+}
@@ -0,0 +1,102 @@
+package voxelearth.dynamicloader;
+
+import voxelearth.dynamicloader.spawn.HostResources;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Sizes the warm pool from observed demand instead of the player count. Session starts
+ * (warm hits and cold misses) feed an exponentially decayed rate; the pool holds enough
+ * servers to cover the starts expected while a replacement boots, within hard bounds and
+ * whatever free host memory allows.
+ */
+public class WarmPoolController {
+
+    // Time constant of the demand estimate: bursts fade out over roughly five minutes.
+    private static final double DEMAND_TAU_SECONDS = 300.0;
+    private static final double BOOT_TIME_ALPHA = 0.3;
+    private static final double HEADROOM = 1.5;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long backendMemoryMb;
+    private final long reservedMemoryMb;
+
+    private double demandPerSecond;
+    private long lastDemandNanos = System.nanoTime();
+    private double bootSeconds = 60.0;
+    private long hits;
+    private long misses;
+
+    public WarmPoolController(int minSize, int maxSize, long backendMemoryMb, long reservedMemoryMb) {
+        this.minSize = Math.max(0, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.backendMemoryMb = Math.max(1, backendMemoryMb);
+        this.reservedMemoryMb = Math.max(0, reservedMemoryMb);
+    }
+
+    /** A session start was served from the warm pool. */
+    public synchronized void recordHit() {
+        hits++;
+        recordDemand();
+    }
+
+    /** A session start found the pool empty and had to cold boot. */
+    public synchronized void recordMiss() {
+        misses++;
+        recordDemand();
+    }
+
+    /** Time a warm backend took from spawn to answering pings. */
+    public synchronized void recordBootTime(Duration boot) {
+        double seconds = boot.toMillis() / 1000.0;
+        bootSeconds = BOOT_TIME_ALPHA * seconds + (1 - BOOT_TIME_ALPHA) * bootSeconds;
+    }
+
+    /**
+     * Desired pool size: expected starts during one boot window plus headroom, clamped to
+     * [min, max] and to the number of extra backends free memory can hold on top of {@code currentSize}.
+     */
+    public synchronized int targetSize(int currentSize) {
+        double expected = currentDemandPerSecond() * bootSeconds * HEADROOM;
+        int target = (int) Math.ceil(expected) + minSize;
+        target = Math.max(minSize, Math.min(maxSize, target));
+
+        OptionalLong available = HostResources.availableMemoryMb();
+        if (available.isPresent()) {
+            long spare = Math.max(0, available.getAsLong() - reservedMemoryMb);
+            int affordable = currentSize + (int) Math.min(Integer.MAX_VALUE, spare / backendMemoryMb);
+            target = Math.min(target, affordable);
+        }
+        return target;
+    }
+
+    public synchronized double demandPerMinute() {
+        return currentDemandPerSecond() * 60.0;
+    }
+
+    public synchronized double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    public synchronized double bootSeconds() {
+        return bootSeconds;
+    }
+
+    private void recordDemand() {
+        long now = System.nanoTime();
+        demandPerSecond = decayed(now) + 1.0 / DEMAND_TAU_SECONDS;
+        lastDemandNanos = now;
+    }
+
+    private double currentDemandPerSecond() {
+        return decayed(System.nanoTime());
+    }
+
+    private double decayed(long now) {
+        double elapsed = (now - lastDemandNanos) / 1e9;
+        return demandPerSecond * Math.exp(-elapsed / DEMAND_TAU_SECONDS);
+    }
+}
@@ -0,0 +1,138 @@
+package voxelearth.dynamicloader.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Wire format of the {@code voxelearth:control} plugin-message channel shared with the backend
+ * companion plugin. Each message is one type byte followed by its fields. Plugin messages ride
+ * on a player's connection, so the player a message concerns is always the one carrying it.
+ * Must stay in step with {@code voxelearth.companion.ControlMessages}.
+ */
+public final class BackendChannel {
+
+    public static final String NAMESPACE = "voxelearth";
+    public static final String NAME = "control";
+    public static final int PROTOCOL_VERSION = 2;
+
+    // proxy -> backend
+    private static final byte CMD_VISIT = 1;
+    private static final byte CMD_RADIUS = 2;
+    private static final byte CMD_MOVELOAD = 3;
+    private static final byte CMD_PLATFORM = 4;
+    private static final byte CMD_RUN = 5;
+    private static final byte CMD_TELEPORT = 6;
+
+    // backend -> proxy
+    private static final byte EVT_WORLD_READY = 64;
+    private static final byte EVT_ENTITY_SPAWNED = 65;
+    private static final byte EVT_VISIT_FINISHED = 66;
+
+    /** Something the companion reported about the carrying player's backend. */
+    public sealed interface Event {
+        record WorldReady(int protocol) implements Event {}
+
+        record EntitySpawned() implements Event {}
+
+        /** {@code world} and the coordinates are where the player landed. */
+        record VisitFinished(String address, String world, double x, double y, double z, float yaw, float pitch)
+                implements Event {}
+    }
+
+    private BackendChannel() {
+    }
+
+    public static byte[] visit(String address) {
+        return encode(CMD_VISIT, out -> out.writeUTF(address));
+    }
+
+    /** {@code kind} is {@code visit} or {@code move}. */
+    public static byte[] radius(String kind, int blocks) {
+        return encode(CMD_RADIUS, out -> {
+            out.writeUTF(kind);
+            out.writeInt(blocks);
+        });
+    }
+
+    public static byte[] moveLoad(String mode) {
+        return encode(CMD_MOVELOAD, out -> out.writeUTF(mode));
+    }
+
+    /** Put a block under the carrying player if they stand on air, then nudge them onto it. */
+    public static byte[] platform() {
+        return encode(CMD_PLATFORM, out -> {});
+    }
+
+    /** Run {@code commandLine} (no leading slash) as the carrying player. */
+    public static byte[] run(String commandLine) {
+        return encode(CMD_RUN, out -> out.writeUTF(commandLine));
+    }
+
+    /** Move the carrying player to a spot in the backend's main world. */
+    public static byte[] teleport(double x, double y, double z, float yaw, float pitch) {
+        return encode(CMD_TELEPORT, out -> {
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(z);
+            out.writeFloat(yaw);
+            out.writeFloat(pitch);
+        });
+    }
+
+    /**
+     * Typed form of a sanitized player command line; anything without a typed equivalent
+     * (such as the {@code *other} variants) is sent as {@link #run(String)}.
+     */
+    public static byte[] forCommandLine(String commandLine) {
+        String[] parts = commandLine.trim().split("\\s+", 2);
+        String label = parts[0].toLowerCase(Locale.ROOT);
+        String rest = parts.length > 1 ? parts[1] : "";
+        try {
+            return switch (label) {
+                case "visit" -> rest.isEmpty() ? run(commandLine) : visit(rest);
+                case "visitradius" -> radius("visit", Integer.parseInt(rest));
+                case "moveradius" -> radius("move", Integer.parseInt(rest));
+                case "moveload" -> moveLoad(rest);
+                default -> run(commandLine);
+            };
+        } catch (NumberFormatException ex) {
+            return run(commandLine);
+        }
+    }
+
+    /** Empty for malformed messages and event types this version does not know. */
+    public static Optional<Event> decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return switch (in.readByte()) {
+                case EVT_WORLD_READY -> Optional.of(new Event.WorldReady(in.readInt()));
+                case EVT_ENTITY_SPAWNED -> Optional.of(new Event.EntitySpawned());
+                case EVT_VISIT_FINISHED -> Optional.of(new Event.VisitFinished(in.readUTF(), in.readUTF(),
+                        in.readDouble(), in.readDouble(), in.readDouble(), in.readFloat(), in.readFloat()));
+                default -> Optional.empty();
+            };
+        } catch (IOException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // in-memory stream; only writeUTF over 64 KB can get here
+        }
+        return bytes.toByteArray();
+    }
+}
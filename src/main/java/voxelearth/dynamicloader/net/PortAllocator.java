@@ -0,0 +1,84 @@
+package voxelearth.dynamicloader.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hands out game/RCON port pairs for backends from a fixed range. Every port is leased
+ * until released and bind-probed before it is handed out, so two live sessions never
+ * collide and ports still held by stray processes are skipped.
+ */
+public final class PortAllocator {
+
+    /** Ports owned by one backend until {@link #release(Lease)}. */
+    public record Lease(int port, int rconPort) {}
+
+    private final int first;
+    private final int span;
+    private final Set<Integer> leased = new HashSet<>();
+    // Round-robin start point so a just-released port (possibly in TIME_WAIT) is reused last.
+    private int cursor;
+
+    /** @param first lowest port handed out; @param last highest port handed out (inclusive) */
+    public PortAllocator(int first, int last) {
+        if (first < 1 || last > 65_535 || last <= first) {
+            throw new IllegalArgumentException("Invalid port range " + first + "-" + last);
+        }
+        this.first = first;
+        this.span = last - first + 1;
+    }
+
+    public synchronized Lease acquire() throws IOException {
+        int port = nextFree();
+        if (port < 0) {
+            throw new IOException("No free ports left in " + describeRange());
+        }
+        int rcon = nextFree();
+        if (rcon < 0) {
+            leased.remove(port);
+            throw new IOException("No free RCON port left in " + describeRange());
+        }
+        return new Lease(port, rcon);
+    }
+
+    public synchronized void release(Lease lease) {
+        if (lease == null) {
+            return;
+        }
+        leased.remove(lease.port());
+        leased.remove(lease.rconPort());
+    }
+
+    public synchronized int leasedPorts() {
+        return leased.size();
+    }
+
+    public String describeRange() {
+        return first + "-" + (first + span - 1);
+    }
+
+    private int nextFree() {
+        for (int i = 0; i < span; i++) {
+            int candidate = first + cursor;
+            cursor = (cursor + 1) % span;
+            if (!leased.contains(candidate) && canBind(candidate)) {
+                leased.add(candidate);
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean canBind(int port) {
+        try (ServerSocket probe = new ServerSocket()) {
+            probe.setReuseAddress(true);
+            probe.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
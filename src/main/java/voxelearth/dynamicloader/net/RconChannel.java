@@ -0,0 +1,98 @@
+package voxelearth.dynamicloader.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One long-lived, authenticated RCON connection per backend. Commands reuse the open socket;
+ * if the connection drops under a command it is re-established once before the failure is reported.
+ */
+public class RconChannel implements Closeable {
+    private final RconEngine engine;
+    private final String host;
+    private final int port;
+    private final String password;
+    private RconClient client;
+    private CompletableFuture<RconClient> connecting;
+    private boolean closed;
+
+    public RconChannel(RconEngine engine, String host, int port, String password) {
+        this.engine = engine;
+        this.host = host;
+        this.port = port;
+        this.password = password;
+    }
+
+    public CompletableFuture<RconClient.Reply> commandAsync(String cmd) {
+        return connected().thenCompose(c -> c.commandAsync(cmd).exceptionallyCompose(ex -> {
+            // A plain timeout leaves the connection usable; only a dropped socket is worth a resend
+            if (!c.isClosed()) return CompletableFuture.failedFuture(ex);
+            return connected().thenCompose(fresh -> fresh.commandAsync(cmd));
+        }));
+    }
+
+    public RconClient.Reply command(String cmd) throws IOException {
+        return RconClient.await(commandAsync(cmd));
+    }
+
+    /**
+     * Send {@code commands} one after another on the shared connection. Commands lost to a dropped
+     * socket are resent once, in order, on a fresh connection.
+     */
+    public CompletableFuture<List<RconClient.Result>> batchAsync(List<String> commands) {
+        return connected()
+                .handle((c, ex) -> ex == null
+                        ? c.batchAsync(commands).thenCompose(results ->
+                                c.isClosed() ? resendDropped(results) : CompletableFuture.completedFuture(results))
+                        : CompletableFuture.completedFuture(RconClient.failedResults(commands, ex)))
+                .thenCompose(f -> f);
+    }
+
+    public List<RconClient.Result> batch(List<String> commands) throws IOException {
+        return RconClient.await(batchAsync(commands));
+    }
+
+    private CompletableFuture<List<RconClient.Result>> resendDropped(List<RconClient.Result> results) {
+        List<String> retry = results.stream().filter(r -> !r.ok()).map(RconClient.Result::command).toList();
+        if (retry.isEmpty()) return CompletableFuture.completedFuture(results);
+        return connected()
+                .handle((c, ex) -> ex == null
+                        ? c.batchAsync(retry)
+                        : CompletableFuture.completedFuture(RconClient.failedResults(retry, ex)))
+                .thenCompose(f -> f)
+                .thenApply(retried -> {
+                    List<RconClient.Result> merged = new ArrayList<>(results.size());
+                    int next = 0;
+                    for (RconClient.Result r : results) {
+                        merged.add(r.ok() ? r : retried.get(next++));
+                    }
+                    return merged;
+                });
+    }
+
+    /** True while an authenticated connection is open; does not touch the network. */
+    public synchronized boolean isConnected() {
+        return client != null && !client.isClosed() && connecting.isDone() && !connecting.isCompletedExceptionally();
+    }
+
+    private synchronized CompletableFuture<RconClient> connected() {
+        if (closed) return CompletableFuture.failedFuture(new IOException("RCON channel closed"));
+        if (client == null || client.isClosed()) {
+            RconClient fresh = new RconClient(engine, host, port, password);
+            client = fresh;
+            connecting = fresh.connectAsync().thenApply(v -> fresh);
+        }
+        return connecting;
+    }
+
+    @Override public synchronized void close() {
+        closed = true;
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+}
@@ -1,87 +1,398 @@
 package voxelearth.dynamicloader.net;
 
 import java.io.*;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
-/** Minimal RCON client for localhost control of per-party servers. */
+/**
+ * Non-blocking RCON connection to one per-party server, driven by a shared {@link RconEngine}.
+ * The vanilla and Paper listeners read exactly one packet per socket read and drop the
+ * connection when two arrive together, so commands go out strictly one at a time: the next is
+ * written only once the previous one has been answered. A reply shorter than a full fragment
+ * is complete; after a full-size fragment a marker packet is sent, and its echo tells us the
+ * remaining fragments have all arrived. Replies are handed over as raw bytes; see {@link Reply}.
+ */
 public class RconClient implements Closeable {
-    private final String host;
-    private final int port;
-    private Socket socket;
-    private DataInputStream in;
-    private DataOutputStream out;
     private static final int SERVERDATA_AUTH = 3;
     private static final int SERVERDATA_EXECCOMMAND = 2;
+    // Any unknown type makes the server echo our id back; it is read only after the reply before it was written.
+    private static final int SERVERDATA_MARKER = 100;
+    private static final long TIMEOUT_MS = 5_000;
     private static final AtomicInteger IDS = new AtomicInteger(1);
+
+    private final RconEngine engine;
+    private final InetSocketAddress address;
     private final String password;
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    // Commands waiting for the connection, in send order
+    private final Queue<Pending> queued = new ConcurrentLinkedQueue<>();
+    // Keeps a batch's commands next to each other in the queue
+    private final ReentrantLock enqueueLock = new ReentrantLock();
+    private volatile boolean closed;
+
+    // Selector thread only
+    private final Queue<Outgoing> outbound = new ArrayDeque<>();
+    private Pending inFlight;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer readBuf;
+    private ByteBuffer writeBuf;
+    private final CharsetEncoder encoder = RconCodec.newEncoder();
+    private int authId;
+
+    /** Outcome of one command in a batch; {@code error} is null when the server answered. */
+    public record Result(String command, Reply response, Throwable error) {
+        public boolean ok() {
+            return error == null;
+        }
+    }
+
+    /**
+     * A command's reply as the bytes the server sent. Most replies are only checked for success,
+     * so the UTF-8 decode waits for the first {@link #text()} call, on the caller's thread.
+     */
+    public static final class Reply {
+        static final Reply EMPTY = new Reply(null, 0);
+
+        private final byte[] bytes;
+        private final int size;
+        private String text;
+
+        Reply(byte[] bytes, int size) {
+            this.bytes = bytes;
+            this.size = size;
+        }
+
+        public String text() {
+            String decoded = text;
+            if (decoded == null) {
+                decoded = size == 0 ? "" : new String(bytes, 0, size, StandardCharsets.UTF_8);
+                text = decoded;
+            }
+            return decoded;
+        }
 
-    public RconClient(String host, int port, String password) {
-        this.host = host;
-        this.port = port;
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override public String toString() {
+            return text();
+        }
+    }
+
+    private record Outgoing(int id, int type, String body) {}
+
+    /** Raw reply bytes for one command, collected across fragments. */
+    static final class Pending {
+        final int id;
+        final String command;
+        final CompletableFuture<Reply> future = new CompletableFuture<>();
+        byte[] body;
+        int size;
+        int markerId; // 0 until a full-size fragment made us send a marker
+
+        Pending(int id, String command) {
+            this.id = id;
+            this.command = command;
+        }
+
+        void append(ByteBuffer src, int length) {
+            if (length == 0) return;
+            if (body == null) {
+                body = new byte[Math.max(256, length)];
+            } else if (size + length > body.length) {
+                body = Arrays.copyOf(body, Math.max(size + length, body.length * 2));
+            }
+            src.get(body, size, length);
+            size += length;
+        }
+
+        Reply reply() {
+            return size == 0 ? Reply.EMPTY : new Reply(body, size);
+        }
+    }
+
+    public RconClient(RconEngine engine, String host, int port, String password) {
+        this.engine = engine;
+        this.address = new InetSocketAddress(host, port);
         this.password = password;
     }
 
+    /** Open the socket and authenticate; completes once the server accepted the password. */
+    public CompletableFuture<Void> connectAsync() {
+        engine.execute(() -> {
+            try {
+                readBuf = engine.takeBuffer();
+                writeBuf = engine.takeBuffer();
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (channel.connect(address)) {
+                    key = engine.register(channel, SelectionKey.OP_READ, this);
+                    sendAuth();
+                } else {
+                    key = engine.register(channel, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+        ready.orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS).whenComplete((v, ex) -> {
+            if (ex != null) fail(ex);
+        });
+        return ready;
+    }
+
     public void connect() throws IOException {
-        socket = new Socket(host, port);
-        socket.setSoTimeout(5000);
-        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
-        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
-        if (!auth(password)) throw new IOException("RCON auth failed");
-    }
-
-    private boolean auth(String pass) throws IOException {
-        int id = IDS.getAndIncrement();
-        sendPacket(id, SERVERDATA_AUTH, pass);
-        var resp = readPacket();
-        return resp.id == id;
-    }
-
-    public String command(String cmd) throws IOException {
-        int id = IDS.getAndIncrement();
-        sendPacket(id, SERVERDATA_EXECCOMMAND, cmd);
-        var resp = readPacket();
-        return resp.body;
-    }
-
-    /** Fire-and-forget command variant that skips reading a reply to avoid blocking the caller. */
-    public void commandNoReply(String cmd) throws IOException {
-        int id = IDS.getAndIncrement();
-        sendPacket(id, SERVERDATA_EXECCOMMAND, cmd);
-        // Vanilla RCON delimiters: send an empty packet so the backend flushes the reply if any.
-        sendPacket(id, SERVERDATA_EXECCOMMAND, "");
-        // Intentionally do not call readPacket(); caller treats this as write-only.
-    }
-
-    private static class Packet { int id; String body; }
-
-    private void sendPacket(int id, int type, String body) throws IOException {
-        byte[] payload = (body + "\0\0").getBytes();
-        ByteBuffer buf = ByteBuffer.allocate(4 + 4 + 4 + payload.length).order(ByteOrder.LITTLE_ENDIAN);
-        buf.putInt(4 + 4 + payload.length);
-        buf.putInt(id);
-        buf.putInt(type);
-        buf.put(payload);
-        out.write(buf.array());
-        out.flush();
-    }
-
-    private Packet readPacket() throws IOException {
-        int size = Integer.reverseBytes(in.readInt());
-        byte[] data = in.readNBytes(size);
-        ByteBuffer buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-        Packet p = new Packet();
-    p.id = buf.getInt();
-    buf.getInt(); // type (unused)
-        int end = data.length - 2; // message \0 + empty \0
-        int start = 8;
-        p.body = new String(data, start, Math.max(0, end - start));
-        return p;
-    }
-
-    @Override public void close() throws IOException {
-        try { if (socket != null) socket.close(); } catch (Exception ignored) {}
+        await(connectAsync());
+    }
+
+    public CompletableFuture<Reply> commandAsync(String cmd) {
+        if (closed) return CompletableFuture.failedFuture(new IOException("RCON connection closed"));
+        if (!ready.isDone()) return ready.thenCompose(v -> commandAsync(cmd));
+        CompletableFuture<Reply> reply = enqueue(cmd);
+        engine.execute(this::sendNextQuietly);
+        return reply;
+    }
+
+    /**
+     * Run {@code commands} on this connection, strictly one after another and without other
+     * commands in between, saving a connect and auth per command. The returned future never
+     * fails; each {@link Result} says whether its command was answered.
+     */
+    public CompletableFuture<List<Result>> batchAsync(List<String> commands) {
+        if (closed) return CompletableFuture.completedFuture(failedResults(commands, new IOException("RCON connection closed")));
+        if (!ready.isDone()) {
+            return ready.handle((v, ex) -> ex).thenCompose(ex ->
+                    ex == null ? batchAsync(commands) : CompletableFuture.completedFuture(failedResults(commands, ex)));
+        }
+        List<CompletableFuture<Result>> replies = new ArrayList<>(commands.size());
+        enqueueLock.lock();
+        try {
+            for (String cmd : commands) {
+                replies.add(enqueue(cmd).handle((r, ex) -> new Result(cmd, r, ex)));
+            }
+        } finally {
+            enqueueLock.unlock();
+        }
+        engine.execute(this::sendNextQuietly);
+        return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new))
+                .thenApply(v -> replies.stream().map(CompletableFuture::join).toList());
+    }
+
+    public List<Result> batch(List<String> commands) throws IOException {
+        return await(batchAsync(commands));
+    }
+
+    private CompletableFuture<Reply> enqueue(String cmd) {
+        if (RconCodec.utf8Length(cmd) > RconCodec.MAX_REQUEST_BODY) {
+            return CompletableFuture.failedFuture(new IOException("RCON command exceeds " + RconCodec.MAX_REQUEST_BODY + " bytes"));
+        }
+        Pending p = new Pending(nextId(), cmd);
+        enqueueLock.lock();
+        try {
+            queued.add(p);
+        } finally {
+            enqueueLock.unlock();
+        }
+        // The timeout starts when the command is written (see sendNext), so a long queue does not expire it.
+        return p.future.whenComplete((r, ex) -> {
+            queued.remove(p);
+            // A late reply for a timed-out id is simply dropped; the stream stays in sync.
+            engine.execute(() -> {
+                if (inFlight == p) {
+                    inFlight = null;
+                    sendNextQuietly();
+                }
+            });
+        });
+    }
+
+    public Reply command(String cmd) throws IOException {
+        return await(commandAsync(cmd));
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /* ===== selector thread callbacks ===== */
+
+    void onConnectable() throws IOException {
+        if (channel.finishConnect()) {
+            key.interestOps(SelectionKey.OP_READ);
+            sendAuth();
+        }
+    }
+
+    void onReadable() throws IOException {
+        int n = channel.read(readBuf);
+        if (n < 0) throw new EOFException("RCON connection closed by server");
+        readBuf.flip();
+        int size;
+        while ((size = RconCodec.packetSize(readBuf)) > 0) {
+            int start = readBuf.position();
+            int id = RconCodec.id(readBuf);
+            readBuf.position(start + RconCodec.BODY_OFFSET);
+            handle(id, RconCodec.bodyLength(size));
+            readBuf.position(start + size);
+        }
+        readBuf.compact();
+    }
+
+    void onWritable() throws IOException {
+        flush();
+    }
+
+    void fail(Throwable cause) {
+        closed = true;
+        try { if (channel != null) channel.close(); } catch (IOException ignored) {}
+        ready.completeExceptionally(cause);
+        Pending p;
+        while ((p = queued.poll()) != null) p.future.completeExceptionally(cause);
+        engine.execute(() -> {
+            if (inFlight != null) inFlight.future.completeExceptionally(cause);
+            inFlight = null;
+            outbound.clear();
+            releaseBuffers();
+        });
+    }
+
+    private void releaseBuffers() {
+        if (readBuf != null) engine.returnBuffer(readBuf);
+        if (writeBuf != null) engine.returnBuffer(writeBuf);
+        readBuf = null;
+        writeBuf = null;
+    }
+
+    /** {@code readBuf} is positioned at the body; only bytes someone is waiting for are copied out. */
+    private void handle(int id, int bodyLength) throws IOException {
+        if (!ready.isDone()) {
+            if (id == authId) {
+                ready.complete(null);
+                sendNext();
+            } else if (id == -1) {
+                fail(new IOException("RCON auth failed"));
+            }
+            return;
+        }
+        Pending p = inFlight;
+        if (p == null) return;
+        if (id == p.id) {
+            p.append(readBuf, bodyLength);
+            if (p.markerId != 0) return;
+            if (bodyLength < RconCodec.MAX_RESPONSE_BODY) {
+                finish(p);
+            } else {
+                // More fragments may follow; the server reads the marker only after writing them all
+                p.markerId = nextId();
+                outbound.add(new Outgoing(p.markerId, SERVERDATA_MARKER, ""));
+                flush();
+            }
+        } else if (p.markerId != 0 && id == p.markerId) {
+            finish(p);
+        }
+    }
+
+    private void finish(Pending p) throws IOException {
+        inFlight = null;
+        p.future.complete(p.reply());
+        sendNext();
+    }
+
+    /** Write the next queued command if nothing is awaiting a reply. */
+    private void sendNext() throws IOException {
+        if (closed || inFlight != null || !ready.isDone() || key == null) return;
+        Pending p;
+        while ((p = queued.poll()) != null) {
+            if (p.future.isDone()) continue;
+            inFlight = p;
+            p.future.orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            outbound.add(new Outgoing(p.id, SERVERDATA_EXECCOMMAND, p.command));
+            flush();
+            return;
+        }
+    }
+
+    private void sendAuth() throws IOException {
+        authId = nextId();
+        outbound.add(new Outgoing(authId, SERVERDATA_AUTH, password));
+        flush();
+    }
+
+    private void sendNextQuietly() {
+        try {
+            sendNext();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Encode queued packets into the connection's write buffer and push as much as the socket
+     * takes. At most one packet is ever queued here, so the server never sees two in one read.
+     */
+    private void flush() throws IOException {
+        if (closed || key == null || !channel.isConnected()) return;
+        while (true) {
+            Outgoing next;
+            while ((next = outbound.peek()) != null && writeBuf.remaining() >= RconCodec.MAX_REQUEST_PACKET) {
+                RconCodec.encode(writeBuf, encoder, next.id(), next.type(), next.body());
+                outbound.poll();
+            }
+            writeBuf.flip();
+            if (!writeBuf.hasRemaining()) {
+                writeBuf.clear();
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+            channel.write(writeBuf);
+            boolean drained = !writeBuf.hasRemaining();
+            writeBuf.compact();
+            if (!drained) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    static List<Result> failedResults(List<String> commands, Throwable cause) {
+        return commands.stream().map(cmd -> new Result(cmd, null, cause)).toList();
+    }
+
+    private static int nextId() {
+        // Never hand out -1 (auth failure) or wrap into negatives
+        return IDS.getAndUpdate(i -> i == Integer.MAX_VALUE ? 1 : i + 1);
+    }
+
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for RCON");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof TimeoutException) throw new SocketTimeoutException("RCON reply timed out");
+            throw new IOException(cause);
+        }
+    }
+
+    @Override public void close() {
+        if (!closed) fail(new IOException("RCON connection closed"));
     }
 }
@@ -0,0 +1,78 @@
+package voxelearth.dynamicloader.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RCON wire format: a little-endian length, id and type, then the UTF-8 body and two NUL
+ * terminators. Packets are encoded straight into the caller's buffer and parsed where they
+ * lie, so neither direction allocates per packet.
+ */
+final class RconCodec {
+    // id + type + two NUL terminators
+    static final int HEADER_AND_PADDING = 10;
+    // Protocol limits: the server rejects request bodies over 1446 bytes and splits replies at 4096.
+    static final int MAX_REQUEST_BODY = 1446;
+    static final int MAX_RESPONSE_BODY = 4096;
+    static final int MAX_REQUEST_PACKET = 4 + HEADER_AND_PADDING + MAX_REQUEST_BODY;
+    // Offset of the body from the start of a packet: length, id and type
+    static final int BODY_OFFSET = 12;
+
+    private RconCodec() {}
+
+    static CharsetEncoder newEncoder() {
+        return StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /** Append one packet to {@code dst}, which must have {@link #MAX_REQUEST_PACKET} bytes free. */
+    static void encode(ByteBuffer dst, CharsetEncoder encoder, int id, int type, String body) {
+        int start = dst.position();
+        dst.position(start + 4);
+        dst.putInt(id);
+        dst.putInt(type);
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(body), dst, true);
+        encoder.flush(dst);
+        dst.put((byte) 0).put((byte) 0);
+        dst.putInt(start, dst.position() - start - 4);
+    }
+
+    /** Size of the whole packet at {@code src}'s position, or -1 while part of it is unread. */
+    static int packetSize(ByteBuffer src) throws IOException {
+        if (src.remaining() < 4) return -1;
+        int length = src.getInt(src.position());
+        if (length < HEADER_AND_PADDING || length > HEADER_AND_PADDING + MAX_RESPONSE_BODY) {
+            throw new IOException("Malformed RCON packet length " + length);
+        }
+        return src.remaining() < 4 + length ? -1 : 4 + length;
+    }
+
+    static int id(ByteBuffer src) {
+        return src.getInt(src.position() + 4);
+    }
+
+    static int bodyLength(int packetSize) {
+        return packetSize - 4 - HEADER_AND_PADDING;
+    }
+
+    /** UTF-8 size without encoding; an unpaired surrogate is counted as 3 bytes, which over-estimates. */
+    static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) bytes++;
+            else if (c < 0x800) bytes += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else bytes += 3;
+        }
+        return bytes;
+    }
+}
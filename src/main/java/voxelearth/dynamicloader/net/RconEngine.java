@@ -0,0 +1,115 @@
+package voxelearth.dynamicloader.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single selector thread that drives every {@link RconClient} connection. Clients hand work
+ * to it with {@link #execute(Runnable)}; all socket I/O happens on this one thread.
+ */
+public final class RconEngine implements Closeable {
+    private final Selector selector;
+    private final Thread thread;
+    // Must hold a full-size reply frame (4 + 10 + 4096 bytes) and a full-size request
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // Selector thread only: direct buffers recycled across connections
+    private final ArrayDeque<ByteBuffer> bufferPool = new ArrayDeque<>();
+    private volatile boolean running = true;
+
+    public RconEngine() {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open RCON selector", e);
+        }
+        thread = new Thread(this::loop, "DynamicLoader-rcon");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Run {@code task} on the selector thread. */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /** Selector thread only. */
+    SelectionKey register(SocketChannel channel, int ops, RconClient client) throws ClosedChannelException {
+        return channel.register(selector, ops, client);
+    }
+
+    /** Selector thread only. */
+    ByteBuffer takeBuffer() {
+        ByteBuffer buf = bufferPool.poll();
+        return buf != null ? buf : ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Selector thread only. */
+    void returnBuffer(ByteBuffer buf) {
+        if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+            bufferPool.push(buf.clear());
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                selector.select(1_000);
+            } catch (IOException e) {
+                continue;
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try { task.run(); } catch (RuntimeException ignored) {}
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                RconClient client = (RconClient) key.attachment();
+                try {
+                    if (!key.isValid()) continue;
+                    if (key.isConnectable()) client.onConnectable();
+                    if (key.isValid() && key.isReadable()) client.onReadable();
+                    if (key.isValid() && key.isWritable()) client.onWritable();
+                } catch (IOException | RuntimeException e) {
+                    client.fail(e);
+                }
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof RconClient client) {
+                client.fail(new IOException("RCON engine stopped"));
+            }
+        }
+        try { selector.close(); } catch (IOException ignored) {}
+    }
+
+    @Override public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The backend companion plugin bundled inside this jar. It is extracted once per build under
+ * {@code templates/} and hard-linked into every server's {@code plugins/} folder after the
+ * template clone, so template zips never have to carry it.
+ */
+public final class CompanionJar {
+
+    private static final String RESOURCE = "/companion/voxelearth-companion.jar";
+    private static final String INSTALLED_NAME = "VoxelEarthCompanion.jar";
+    private static final String DIR_PREFIX = "companion-";
+
+    private final ComponentLogger logger;
+    private final Path templatesRoot;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Path extracted;
+    private volatile boolean missingLogged;
+    private volatile boolean linksSupported = true;
+
+    public CompanionJar(ComponentLogger logger, Path templatesRoot) {
+        this.logger = logger;
+        this.templatesRoot = templatesRoot;
+    }
+
+    /**
+     * Put the companion into {@code serverFolder/plugins}. Returns false when this build does not
+     * bundle it; servers then run without it and the proxy keeps using RCON and chat commands.
+     */
+    public boolean installInto(Path serverFolder) throws IOException {
+        Path jar = extract();
+        if (jar == null) {
+            return false;
+        }
+        Path plugins = serverFolder.resolve("plugins");
+        Files.createDirectories(plugins);
+        Path target = plugins.resolve(INSTALLED_NAME);
+        Files.deleteIfExists(target);
+        if (!FileTrees.linkOrCopy(jar, target, linksSupported)) {
+            linksSupported = false;
+        }
+        return true;
+    }
+
+    private Path extract() throws IOException {
+        Path jar = extracted;
+        if (jar != null && Files.isRegularFile(jar)) {
+            return jar;
+        }
+        lock.lock();
+        try {
+            jar = extracted;
+            if (jar != null && Files.isRegularFile(jar)) {
+                return jar;
+            }
+            byte[] bytes;
+            try (InputStream in = CompanionJar.class.getResourceAsStream(RESOURCE)) {
+                if (in == null) {
+                    if (!missingLogged) {
+                        missingLogged = true;
+                        logger.warn("[Spawn] No companion plugin bundled in this build; backends run without it");
+                    }
+                    return null;
+                }
+                bytes = in.readAllBytes();
+            }
+            String hash = FileTrees.sha256(bytes).substring(0, 16);
+            Path dir = templatesRoot.resolve(DIR_PREFIX + hash);
+            jar = dir.resolve(INSTALLED_NAME);
+            if (!Files.isRegularFile(jar)) {
+                Files.createDirectories(dir);
+                Path tmp = dir.resolve(INSTALLED_NAME + ".tmp-" + ProcessHandle.current().pid());
+                Files.write(tmp, bytes);
+                Files.move(tmp, jar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("[Spawn] Companion plugin extracted to {}", jar);
+            }
+            // Running servers keep their hard-linked copies of older builds
+            FileTrees.pruneSiblings(templatesRoot, DIR_PREFIX, dir::equals, logger, "[Spawn]");
+            extracted = jar;
+            return jar;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+}
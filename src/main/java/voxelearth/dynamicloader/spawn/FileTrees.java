@@ -0,0 +1,151 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/** File helpers shared by the template, runtime, snapshot and world stores. */
+public final class FileTrees {
+
+    private FileTrees() {}
+
+    public static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.deleteIfExists(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.deleteIfExists(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /** Copy everything under {@code source} into {@code dest}. */
+    public static void copyTree(Path source, Path dest) throws IOException {
+        copyTree(source, dest, Set.of());
+    }
+
+    /** Copy {@code source} into {@code dest}, skipping any file or folder whose name is in {@code skipNames}. */
+    public static void copyTree(Path source, Path dest, Set<String> skipNames) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(source) && skipNames.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(dest.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!skipNames.contains(file.getFileName().toString())) {
+                    Files.copy(file, dest.resolve(source.relativize(file).toString()),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Delete every entry of {@code root} whose name starts with {@code prefix}, except those
+     * {@code keep} accepts: the versioned folders of a store that the current version replaced.
+     * Failures are logged under {@code tag} and otherwise ignored.
+     */
+    public static void pruneSiblings(Path root, String prefix, Predicate<Path> keep, ComponentLogger logger, String tag) {
+        List<Path> stale;
+        try (var stream = Files.list(root)) {
+            stale = stream.filter(p -> p.getFileName().toString().startsWith(prefix)).toList();
+        } catch (IOException ignored) {
+            return;
+        }
+        for (Path p : stale) {
+            if (keep.test(p)) {
+                continue;
+            }
+            try {
+                deleteTree(p);
+                logger.info("{} Removed stale {}", tag, p);
+            } catch (IOException ex) {
+                logger.warn("{} Could not remove stale {}: {}", tag, p, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hard-link {@code target} to {@code source} when {@code tryLink} is set, otherwise or when
+     * the file system refuses, copy it. Returns whether it was linked, so callers can stop trying.
+     */
+    public static boolean linkOrCopy(Path source, Path target, boolean tryLink) throws IOException {
+        if (tryLink) {
+            try {
+                Files.createLink(target, source);
+                return true;
+            } catch (UnsupportedOperationException | FileSystemException ex) {
+                // fall through to a copy
+            }
+        }
+        Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+        return false;
+    }
+
+    /** Hex SHA-256 of a file's contents. */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = sha256Digest();
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Hex SHA-256 of {@code bytes}. */
+    public static String sha256(byte[] bytes) throws IOException {
+        return HexFormat.of().formatHex(sha256Digest().digest(bytes));
+    }
+
+    private static MessageDigest sha256Digest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException("SHA-256 unavailable", ex);
+        }
+    }
+
+    /** Total size in bytes of every regular file under {@code root}. */
+    public static long sizeOf(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return 0L;
+        }
+        long[] total = {0L};
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                total[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return total[0];
+    }
+}
@@ -0,0 +1,45 @@
+package voxelearth.dynamicloader.spawn;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+/** Host memory and CPU readings used to keep backend spawns within what the machine can hold. */
+public final class HostResources {
+
+    private static final Path MEMINFO = Path.of("/proc/meminfo");
+
+    private HostResources() {}
+
+    /** {@code MemAvailable} from /proc/meminfo in MB; empty when not on Linux. */
+    public static OptionalLong availableMemoryMb() {
+        if (!Files.isReadable(MEMINFO)) {
+            return OptionalLong.empty();
+        }
+        try {
+            List<String> lines = Files.readAllLines(MEMINFO, StandardCharsets.US_ASCII);
+            for (String line : lines) {
+                if (line.startsWith("MemAvailable:")) {
+                    String[] parts = line.trim().split("\\s+");
+                    return OptionalLong.of(Long.parseLong(parts[1]) / 1024);
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+        }
+        return OptionalLong.empty();
+    }
+
+    /** One-minute load average divided by the number of CPUs; empty when the platform has none. */
+    public static OptionalDouble loadPerCpu() {
+        double load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+        if (load < 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(load / Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+}
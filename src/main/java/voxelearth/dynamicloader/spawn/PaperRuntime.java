@@ -0,0 +1,211 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * One Paperclip-patched server jar plus {@code libraries/} shared by every backend.
+ * Paperclip is run once in patch-only mode per template hash; spawns then start the
+ * patched server straight from that classpath instead of re-patching in every folder.
+ */
+public final class PaperRuntime {
+
+    private static final String DIR_PREFIX = "paper-runtime-";
+    private static final String READY_MARKER = ".ready";
+    private static final String CLASS_ARCHIVE = "paper.jsa";
+    private static final long PATCH_TIMEOUT_MINUTES = 5;
+
+    /** Resolved launch target for one template version; {@code dir} is null when falling back to Paperclip. */
+    private record Resolved(String hash, List<String> args, Path dir) {}
+
+    private final ComponentLogger logger;
+    private final Path runtimesRoot;
+    private final String javaExecutable;
+    private volatile Resolved current;
+    // Held across the one-time Paperclip patch; a lock rather than a monitor so waiting virtual threads unmount
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public PaperRuntime(ComponentLogger logger, Path runtimesRoot, String javaExecutable) {
+        this.logger = logger;
+        this.runtimesRoot = runtimesRoot;
+        this.javaExecutable = javaExecutable;
+    }
+
+    /**
+     * JVM arguments that start Paper for the given template: {@code -cp <shared classpath> <main>}
+     * when the shared runtime is available, otherwise {@code -jar <jar>} so Paperclip patches locally.
+     */
+    public List<String> launchArgs(String templateHash, Path templateJar) {
+        Resolved snap = current;
+        if (snap != null && snap.hash().equals(templateHash)) {
+            return snap.args();
+        }
+        lock.lock();
+        try {
+            snap = current;
+            if (snap != null && snap.hash().equals(templateHash)) {
+                return snap.args();
+            }
+            Path dir = runtimesRoot.resolve(DIR_PREFIX + templateHash.substring(0, 16));
+            List<String> args;
+            try {
+                args = prepare(dir, templateJar);
+            } catch (IOException ex) {
+                logger.warn("[Runtime] Shared Paper runtime unavailable ({}); backends will self-patch", ex.getMessage());
+                args = List.of("-jar", templateJar.getFileName().toString());
+                dir = null;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return List.of("-jar", templateJar.getFileName().toString());
+            }
+            current = new Resolved(templateHash, args, dir);
+            return args;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Location of the AppCDS archive for a template, if it runs from the shared runtime.
+     * The archive lives inside the runtime folder, so a new template hash invalidates it.
+     * Per-folder Paperclip launches load classes through a custom loader and cannot use one.
+     */
+    public Optional<Path> classArchive(String templateHash) {
+        Resolved snap = current;
+        if (snap == null || !snap.hash().equals(templateHash) || snap.dir() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(snap.dir().resolve(CLASS_ARCHIVE));
+    }
+
+    private List<String> prepare(Path dir, Path templateJar) throws IOException, InterruptedException {
+        if (!Files.exists(dir.resolve(READY_MARKER))) {
+            patch(dir, templateJar);
+        }
+        pruneStale(dir);
+
+        List<String> classpath = new ArrayList<>();
+        String mainClass;
+        try (JarFile jar = new JarFile(templateJar.toFile())) {
+            mainClass = readEntry(jar, "META-INF/main-class").stream().findFirst()
+                    .orElseThrow(() -> new IOException("Paperclip jar has no META-INF/main-class"));
+            for (String path : listedPaths(jar, "META-INF/versions.list")) {
+                classpath.add(dir.resolve("versions").resolve(path).toString());
+            }
+            for (String path : listedPaths(jar, "META-INF/libraries.list")) {
+                classpath.add(dir.resolve("libraries").resolve(path).toString());
+            }
+        }
+        if (classpath.isEmpty()) {
+            throw new IOException(templateJar.getFileName() + " is not a Paperclip jar");
+        }
+        for (String entry : classpath) {
+            if (!Files.isRegularFile(Path.of(entry))) {
+                throw new IOException("Patched runtime is missing " + entry);
+            }
+        }
+        logger.info("[Runtime] Backends launch from shared runtime {} ({} classpath entries)", dir, classpath.size());
+        return List.of("-cp", String.join(File.pathSeparator, classpath), mainClass.trim());
+    }
+
+    /** Run Paperclip with patch-only in a scratch folder and publish the result atomically. */
+    private void patch(Path dir, Path templateJar) throws IOException, InterruptedException {
+        Files.createDirectories(runtimesRoot);
+        Path staging = runtimesRoot.resolve("." + dir.getFileName() + ".tmp-" + ProcessHandle.current().pid());
+        FileTrees.deleteTree(staging);
+        Files.createDirectories(staging);
+        Path jar = staging.resolve(templateJar.getFileName().toString());
+        Files.copy(templateJar, jar);
+
+        logger.info("[Runtime] Patching {} once into {}", templateJar.getFileName(), dir);
+        ProcessBuilder pb = new ProcessBuilder(javaExecutable, "-Dpaperclip.patchonly=true", "-jar", jar.getFileName().toString());
+        pb.directory(staging.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.appendTo(staging.resolve("patch.log").toFile()));
+        Process process = pb.start();
+        try {
+            process.onExit().get(PATCH_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        } catch (TimeoutException ex) {
+            process.destroyForcibly();
+            throw new IOException("Paperclip patch timed out after " + PATCH_TIMEOUT_MINUTES + " minutes");
+        } catch (ExecutionException ex) {
+            process.destroyForcibly();
+            throw new IOException("Paperclip patch could not be awaited: " + ex.getCause(), ex.getCause());
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("Paperclip patch exited with code " + process.exitValue() + "; see " + staging.resolve("patch.log"));
+        }
+
+        Files.writeString(staging.resolve(READY_MARKER), templateJar.getFileName() + "\n", StandardCharsets.UTF_8);
+        try {
+            Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException raced) {
+            FileTrees.deleteTree(staging);
+        }
+    }
+
+    /**
+     * Delete runtimes of older templates. Servers launched from one keep reading its jars (classes
+     * load lazily) and its class archive for as long as they run, so a runtime still named on a
+     * live process's command line is left alone; the next proxy start removes it.
+     */
+    private void pruneStale(Path keep) {
+        List<String> commandLines = ProcessHandle.allProcesses()
+                .map(ph -> ph.info().commandLine().orElse(""))
+                .filter(cmd -> cmd.contains(DIR_PREFIX))
+                .toList();
+        FileTrees.pruneSiblings(runtimesRoot, DIR_PREFIX, p -> {
+            if (p.equals(keep)) {
+                return true;
+            }
+            String marker = p + File.separator;
+            if (commandLines.stream().anyMatch(cmd -> cmd.contains(marker))) {
+                logger.info("[Runtime] Keeping stale runtime {} while servers still run from it", p);
+                return true;
+            }
+            return false;
+        }, logger, "[Runtime]");
+    }
+
+    /** Paperclip list files are tab-separated {@code hash  id  path}; the path is relative to its folder. */
+    private static List<String> listedPaths(JarFile jar, String entry) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (String line : readEntry(jar, entry)) {
+            String[] parts = line.split("\t");
+            if (parts.length >= 3 && !parts[2].isBlank()) {
+                paths.add(parts[2].trim());
+            }
+        }
+        return paths;
+    }
+
+    private static List<String> readEntry(JarFile jar, String name) throws IOException {
+        ZipEntry entry = jar.getEntry(name);
+        if (entry == null) {
+            return List.of();
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(jar.getInputStream(entry), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,155 @@
+package voxelearth.dynamicloader.spawn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event-driven discovery of the {@code .server-pid} file a spawn script writes into a server
+ * folder. The folder's parent is watched so the folder can be picked up as soon as it is
+ * created, then the folder itself until the PID file appears or is atomically replaced.
+ */
+public final class PidFileWatcher implements Closeable {
+
+    // Safety net for events the platform drops or coalesces
+    private static final long RESCAN_MILLIS = 1_000;
+
+    private final WatchService watcher;
+    private final Thread thread;
+    private final Map<Path, CompletableFuture<Long>> pending = new ConcurrentHashMap<>(); // pid file -> future
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public PidFileWatcher() {
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open PID watch service", e);
+        }
+        thread = new Thread(this::loop, "DynamicLoader-pid");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Completes with the PID once {@code pidFile} holds one. Cancel the future to stop waiting;
+     * it fails if the watcher is closed first.
+     */
+    public CompletableFuture<Long> await(Path pidFile) {
+        Path file = pidFile.toAbsolutePath().normalize();
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        CompletableFuture<Long> previous = pending.put(file, future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        future.whenComplete((pid, ex) -> {
+            pending.remove(file, future);
+            unwatch(file.getParent());
+        });
+        Path folder = file.getParent();
+        watchQuietly(folder.getParent());
+        watchQuietly(folder);
+        check(file);
+        return future;
+    }
+
+    private void loop() {
+        long nextRescan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESCAN_MILLIS);
+        while (running) {
+            WatchKey key;
+            try {
+                key = watcher.poll(RESCAN_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+            if (key != null) {
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dir == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan();
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    if (pending.containsKey(child)) {
+                        check(child);
+                    } else if (pending.containsKey(child.resolve(ServerSpawner.PID_FILE_NAME))) {
+                        // The server folder was just created; start watching inside it
+                        watchQuietly(child);
+                        check(child.resolve(ServerSpawner.PID_FILE_NAME));
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+            if (System.nanoTime() >= nextRescan) {
+                rescan();
+                nextRescan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESCAN_MILLIS);
+            }
+        }
+    }
+
+    private void rescan() {
+        for (Path file : pending.keySet()) {
+            watchQuietly(file.getParent());
+            check(file);
+        }
+    }
+
+    private void check(Path file) {
+        CompletableFuture<Long> future = pending.get(file);
+        if (future == null || future.isDone() || !Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            String raw = Files.readString(file, StandardCharsets.UTF_8).trim();
+            if (!raw.isEmpty()) {
+                future.complete(Long.parseLong(raw));
+            }
+        } catch (IOException | NumberFormatException ignored) {
+            // Mid-write by a non-atomic writer; the next event or rescan reads it again
+        }
+    }
+
+    private void watchQuietly(Path dir) {
+        if (dir == null || !Files.isDirectory(dir) || watchedDirs.containsValue(dir)) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirs.put(key, dir);
+        } catch (IOException | ClosedWatchServiceException ignored) {
+            // Folder vanished or watcher closed; the rescan retries while the future is pending
+        }
+    }
+
+    /** Stop watching a server folder once nothing waits on it; the shared parent stays registered. */
+    private void unwatch(Path folder) {
+        watchedDirs.entrySet().removeIf(entry -> {
+            if (entry.getValue().equals(folder)) {
+                entry.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+        }
+        IOException closed = new IOException("PID watcher closed");
+        pending.values().forEach(future -> future.completeExceptionally(closed));
+        pending.clear();
+        watchedDirs.clear();
+    }
+}
@@ -0,0 +1,180 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Pre-built regions for catalog destinations, baked once per template hash by visiting each
+ * place on a live backend and copying the region files around where the visit landed. Copied
+ * into a server's world when a player picks that place, so they are teleported straight into
+ * the finished build instead of waiting for the download and voxelization.
+ */
+public final class PlaceSnapshots {
+
+    private static final String DIR_PREFIX = "places-";
+    private static final String WORLD = "world";
+    // Per-region data Paper keeps for the overworld; all three share the r.X.Z.mca naming.
+    private static final List<String> REGION_DIRS = List.of("region", "entities", "poi");
+    private static final String LANDING_FILE = "landing.properties";
+    private static final int REGION_BLOCKS = 512;
+
+    /** Where a visit to the place lands in the main world. */
+    public record Landing(double x, double y, double z, float yaw, float pitch) {}
+
+    private final ComponentLogger logger;
+    private final Path snapshotsRoot;
+
+    public PlaceSnapshots(ComponentLogger logger, Path snapshotsRoot) {
+        this.logger = logger;
+        this.snapshotsRoot = snapshotsRoot;
+    }
+
+    /** Directory-safe key for a visit address: {@code "Eiffel Tower, Paris"} becomes {@code eiffel-tower-paris}. */
+    public static String keyFor(String address) {
+        String key = address.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "");
+        return key.length() > 64 ? key.substring(0, 64) : key;
+    }
+
+    public boolean isBaked(String templateHash, String place) {
+        return Files.isRegularFile(dirFor(templateHash, place).resolve(LANDING_FILE));
+    }
+
+    /**
+     * Copy the baked regions of {@code place} into the world of a server that has not started.
+     * A running server must never get them: Paper remembers which region files were missing and
+     * keeps unsaved chunks in memory, so it would ignore the copies or later save over them.
+     * With {@code keepExisting} nothing is copied unless none of the baked files exist there yet,
+     * so an archived world's own builds are never overwritten. Returns the landing, or null when
+     * nothing was copied.
+     */
+    public Landing restoreInto(String templateHash, String place, Path serverFolder, boolean keepExisting) throws IOException {
+        Path dir = dirFor(templateHash, place);
+        Landing landing = readLanding(dir);
+        if (landing == null) {
+            return null;
+        }
+        Path world = serverFolder.resolve(WORLD);
+        List<Path> files = new ArrayList<>();
+        for (String sub : REGION_DIRS) {
+            Path source = dir.resolve(sub);
+            if (!Files.isDirectory(source)) {
+                continue;
+            }
+            try (var stream = Files.list(source)) {
+                for (Path file : stream.toList()) {
+                    files.add(dir.relativize(file));
+                }
+            }
+        }
+        if (keepExisting) {
+            for (Path rel : files) {
+                if (Files.exists(world.resolve(rel.toString()))) {
+                    return null;
+                }
+            }
+        }
+        for (Path rel : files) {
+            Path target = world.resolve(rel.toString());
+            Files.createDirectories(target.getParent());
+            Files.copy(dir.resolve(rel.toString()), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return landing;
+    }
+
+    /**
+     * Bake {@code place} from {@code serverFolder}, whose world must have been flushed to disk:
+     * every region within {@code radiusBlocks} of {@code landing}. An existing bake is kept.
+     */
+    public void capture(String templateHash, String place, Path serverFolder, Landing landing, int radiusBlocks)
+            throws IOException {
+        Path dir = dirFor(templateHash, place);
+        if (Files.isDirectory(dir)) {
+            return;
+        }
+        Path world = serverFolder.resolve(WORLD);
+        int minX = Math.floorDiv((int) Math.floor(landing.x()) - radiusBlocks, REGION_BLOCKS);
+        int maxX = Math.floorDiv((int) Math.floor(landing.x()) + radiusBlocks, REGION_BLOCKS);
+        int minZ = Math.floorDiv((int) Math.floor(landing.z()) - radiusBlocks, REGION_BLOCKS);
+        int maxZ = Math.floorDiv((int) Math.floor(landing.z()) + radiusBlocks, REGION_BLOCKS);
+
+        Files.createDirectories(dir.getParent());
+        Path staging = dir.resolveSibling("." + place + ".tmp-" + ProcessHandle.current().pid());
+        FileTrees.deleteTree(staging);
+        int copied = 0;
+        for (String sub : REGION_DIRS) {
+            for (int rx = minX; rx <= maxX; rx++) {
+                for (int rz = minZ; rz <= maxZ; rz++) {
+                    String name = "r." + rx + "." + rz + ".mca";
+                    Path source = world.resolve(sub).resolve(name);
+                    if (Files.isRegularFile(source)) {
+                        Files.createDirectories(staging.resolve(sub));
+                        Files.copy(source, staging.resolve(sub).resolve(name));
+                        copied++;
+                    }
+                }
+            }
+        }
+        if (copied == 0) {
+            FileTrees.deleteTree(staging);
+            throw new IOException("No region files around the landing of " + place);
+        }
+        writeLanding(staging, landing);
+        try {
+            Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException raced) {
+            FileTrees.deleteTree(staging);
+            return;
+        }
+        // Bakes for older templates no longer match the plugin that would load them
+        FileTrees.pruneSiblings(snapshotsRoot, DIR_PREFIX, dir.getParent()::equals, logger, "[World]");
+        logger.info("[World] Baked {} ({} region files, {} KB)", place, copied, FileTrees.sizeOf(dir) / 1024);
+    }
+
+    private Path dirFor(String templateHash, String place) {
+        return snapshotsRoot.resolve(DIR_PREFIX + templateHash.substring(0, 16)).resolve(place);
+    }
+
+    private static Landing readLanding(Path dir) throws IOException {
+        Path file = dir.resolve(LANDING_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(in);
+        }
+        try {
+            return new Landing(
+                    Double.parseDouble(props.getProperty("x")),
+                    Double.parseDouble(props.getProperty("y")),
+                    Double.parseDouble(props.getProperty("z")),
+                    Float.parseFloat(props.getProperty("yaw", "0")),
+                    Float.parseFloat(props.getProperty("pitch", "0")));
+        } catch (NullPointerException | NumberFormatException ex) {
+            throw new IOException("Malformed " + file, ex);
+        }
+    }
+
+    private static void writeLanding(Path dir, Landing landing) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("x", Double.toString(landing.x()));
+        props.setProperty("y", Double.toString(landing.y()));
+        props.setProperty("z", Double.toString(landing.z()));
+        props.setProperty("yaw", Float.toString(landing.yaw()));
+        props.setProperty("pitch", Float.toString(landing.pitch()));
+        try (Writer out = Files.newBufferedWriter(dir.resolve(LANDING_FILE), StandardCharsets.UTF_8)) {
+            props.store(out, null);
+        }
+    }
+
+
+}
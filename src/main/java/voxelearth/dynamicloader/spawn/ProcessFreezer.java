@@ -0,0 +1,69 @@
+package voxelearth.dynamicloader.spawn;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Suspends and resumes a backend's whole process tree with SIGSTOP/SIGCONT. A stopped JVM keeps
+ * its heap and world in memory but is never scheduled, so it costs no CPU until it is continued.
+ * Linux only; the JDK has no signal API, so this goes through {@code kill}.
+ */
+public final class ProcessFreezer {
+
+    private static final Path KILL = Path.of("/bin/kill");
+    private static final long KILL_TIMEOUT_MS = 2_000;
+
+    private ProcessFreezer() {}
+
+    public static boolean supported() {
+        return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")
+                && Files.isExecutable(KILL);
+    }
+
+    /** SIGSTOP {@code root} and every descendant; returns false if the signal could not be delivered. */
+    public static boolean suspend(ProcessHandle root) {
+        return signal("-STOP", root);
+    }
+
+    /** SIGCONT {@code root} and every descendant; returns false if the signal could not be delivered. */
+    public static boolean resume(ProcessHandle root) {
+        return signal("-CONT", root);
+    }
+
+    private static boolean signal(String signal, ProcessHandle root) {
+        if (root == null || !root.isAlive()) {
+            return false;
+        }
+        List<String> command = new ArrayList<>();
+        command.add(KILL.toString());
+        command.add(signal);
+        command.add(Long.toString(root.pid()));
+        root.descendants().forEach(child -> command.add(Long.toString(child.pid())));
+        try {
+            Process kill = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                // Waits on the process-reaper future, so a virtual thread unmounts instead of pinning a carrier
+                kill.onExit().get(KILL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                kill.destroyForcibly();
+                return false;
+            }
+            return kill.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
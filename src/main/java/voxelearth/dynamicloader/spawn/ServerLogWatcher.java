@@ -0,0 +1,191 @@
+package voxelearth.dynamicloader.spawn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Follows each backend's {@code server.log} and reports the lines that mark readiness:
+ * Paper's "Done (x.xxxs)!" and, logged just after it, "RCON running on". One WatchService
+ * thread tails every session folder, so readiness is seen as soon as the line is written
+ * instead of on the next ping or RCON probe.
+ */
+public final class ServerLogWatcher implements Closeable {
+
+    /** Callbacks run on the watcher thread (or the caller of {@link #watch}); keep them short. */
+    public interface Listener {
+        void rconReady();
+
+        void serverDone();
+    }
+
+    private static final String RCON_MARKER = "RCON running on";
+    private static final Pattern DONE_LINE = Pattern.compile("Done \\(\\d+[.,]\\d+s\\)!");
+    // Events can be dropped (OVERFLOW) or coalesced; every open tail is re-read at least this often
+    private static final long RESCAN_MILLIS = 1_000;
+    private static final int MAX_LINE = 64 * 1024;
+
+    private final WatchService watcher;
+    private final Thread thread;
+    private final Map<WatchKey, Tail> tails = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public ServerLogWatcher() {
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open log watch service", e);
+        }
+        thread = new Thread(this::loop, "DynamicLoader-logs");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Start following {@code folder}/server.log, including anything already written. The watch
+     * ends by itself once the server reports Done and, with {@code expectRcon}, the RCON
+     * listener; closing the handle ends it earlier.
+     */
+    public Closeable watch(Path folder, boolean expectRcon, Listener listener) throws IOException {
+        WatchKey key = folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Tail tail = new Tail(folder.resolve(ServerSpawner.LOG_FILE_NAME), expectRcon, listener);
+        tails.put(key, tail);
+        tail.poll();
+        return () -> stop(key);
+    }
+
+    private void stop(WatchKey key) {
+        key.cancel();
+        tails.remove(key);
+    }
+
+    private void loop() {
+        long nextRescan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESCAN_MILLIS);
+        while (running) {
+            WatchKey key;
+            try {
+                key = watcher.poll(RESCAN_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+            if (key != null) {
+                boolean logTouched = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || (context instanceof Path p && p.toString().equals(ServerSpawner.LOG_FILE_NAME))) {
+                        logTouched = true;
+                    }
+                }
+                Tail tail = tails.get(key);
+                if (tail != null && logTouched) {
+                    pollAndRetire(key, tail);
+                }
+                key.reset();
+            }
+            if (System.nanoTime() >= nextRescan) {
+                tails.forEach(this::pollAndRetire);
+                nextRescan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESCAN_MILLIS);
+            }
+        }
+    }
+
+    private void pollAndRetire(WatchKey key, Tail tail) {
+        tail.poll();
+        if (tail.finished()) {
+            stop(key);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+        }
+        tails.clear();
+    }
+
+    /** Read position and partial-line state for one log file. */
+    private static final class Tail {
+        private final Path file;
+        private final boolean expectRcon;
+        private final Listener listener;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ByteBuffer chunk = ByteBuffer.allocate(8 * 1024);
+        private final StringBuilder line = new StringBuilder();
+        private long position;
+        private volatile boolean rconSeen;
+        private volatile boolean doneSeen;
+
+        Tail(Path file, boolean expectRcon, Listener listener) {
+            this.file = file;
+            this.expectRcon = expectRcon;
+            this.listener = listener;
+        }
+
+        /** Paper starts the RCON listener after logging Done, so that line is the last one we need. */
+        boolean finished() {
+            return doneSeen && (rconSeen || !expectRcon);
+        }
+
+        void poll() {
+            lock.lock();
+            try {
+                if (finished() || !Files.isRegularFile(file)) {
+                    return;
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    if (channel.size() < position) {
+                        position = 0; // truncated or replaced
+                    }
+                    int n;
+                    while (!finished() && (n = channel.read(chunk.clear(), position)) > 0) {
+                        position += n;
+                        consume(chunk.flip());
+                    }
+                } catch (IOException ignored) {
+                    // Not readable yet; the next event or rescan tries again
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void consume(ByteBuffer bytes) {
+            // The markers are ASCII, so a byte-per-char view is enough and never splits a character
+            while (bytes.hasRemaining()) {
+                char c = (char) (bytes.get() & 0xFF);
+                if (c == '\n') {
+                    onLine(line);
+                    line.setLength(0);
+                    if (finished()) {
+                        return;
+                    }
+                } else if (line.length() < MAX_LINE) {
+                    line.append(c);
+                }
+            }
+        }
+
+        private void onLine(StringBuilder text) {
+            if (!rconSeen && text.indexOf(RCON_MARKER) >= 0) {
+                rconSeen = true;
+                listener.rconReady();
+            }
+            if (!doneSeen && DONE_LINE.matcher(text).find()) {
+                doneSeen = true;
+                listener.serverDone();
+            }
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * In-process replacement for spawn_server.py: clones a per-server folder from the cached
+ * template base and launches the Paper JVM directly, so the caller owns the real process.
+ */
+public final class ServerSpawner {
+
+    /**
+     * Everything needed to prepare and boot one backend. {@code worldOwner} is the party leader
+     * whose archived world should be restored, or null; {@code place} is the
+     * {@linkplain PlaceSnapshots#keyFor key} of a baked destination to copy in, or null.
+     */
+    public record Request(String serverName, int port, int rconPort, String rconPass, boolean emptyWorld,
+                          UUID worldOwner, String place) {}
+
+    /**
+     * A started backend. {@code prebakedWorld} means a world with the platform already in place
+     * was restored (the void world snapshot or the owner's archived world); {@code restoredWorld}
+     * means it was the owner's archive. {@code landing} is set when the requested place was baked.
+     */
+    public record Launched(Process process, boolean prebakedWorld, boolean restoredWorld, PlaceSnapshots.Landing landing) {}
+
+    public static final String PID_FILE_NAME = ".server-pid";
+    public static final String LOG_FILE_NAME = "server.log";
+    private static final String TEMPLATE_NAME = "voxelearth.zip";
+    private static final String SERVER_JAR = "paper.jar";
+    private static final String TRAINING_FOLDER = ".cds-training";
+    private static final long TRAINING_BOOT_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long TRAINING_ADMISSION_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long TRAINING_STOP_TIMEOUT_MINUTES = 2;
+    private static final int MAX_TRAINING_ATTEMPTS = 3;
+    private static final Set<String> WORLD_DIRS = Set.of("world", "world_nether", "world_the_end");
+    // Same toggle spawn_server.py applied: proxies.velocity.enabled false -> true
+    private static final Pattern VELOCITY_DISABLED =
+            Pattern.compile("(?m)(^(\\s*)velocity:\\s*\\n\\2[ \\t]+enabled:\\s*)false\\b");
+    private static final Pattern END_ENABLED = Pattern.compile("(?m)^(\\s*allow-end:\\s*)true\\b");
+    private static final Pattern WATCHDOG_TIMEOUT = Pattern.compile("(?m)^(\\s*timeout-time:\\s*)-?\\d+\\b");
+
+    private static final long MIN_HEAP_MB = 512;
+
+    private static final List<String> JVM_FLAGS = List.of(
+            "-XX:+UseG1GC",
+            "-XX:+ParallelRefProcEnabled",
+            "-XX:MaxGCPauseMillis=100",
+            "-XX:+UnlockExperimentalVMOptions",
+            "-XX:G1NewSizePercent=20",
+            "-XX:G1MaxNewSizePercent=30",
+            "-XX:G1HeapRegionSize=4M",
+            "-XX:G1ReservePercent=15",
+            "-XX:InitiatingHeapOccupancyPercent=20",
+            "-XX:G1MixedGCLiveThresholdPercent=85",
+            "-XX:MaxTenuringThreshold=1",
+            "-XX:+DisableExplicitGC",
+            "-XX:+AlwaysPreTouch",
+            "-XX:+PerfDisableSharedMem",
+            "-Daikars.new.flags=true"
+    );
+
+    private final ComponentLogger logger;
+    private final TemplateCache templates;
+    private final PaperRuntime runtime;
+    private final VoidWorldSnapshot voidWorld;
+    private final CompanionJar companion;
+    private final WorldCache worldCache; // null when disabled
+    private final SharedCache sharedCache;
+    private final PlaceSnapshots places;
+    private final Path serversRoot;
+    private final String javaExecutable;
+    private final boolean classArchiveEnabled = !Boolean.getBoolean("dynamicloader.disableAppCds");
+    private final boolean companionEnabled = !Boolean.getBoolean("dynamicloader.disableCompanion");
+    private final boolean suspendable;
+    // Shared with the proxy's own boots so the training boot counts against the same budget
+    private final SpawnScheduler scheduler;
+    private final ServerLogWatcher serverLogs;
+    // -Xms/-Xmx; with AlwaysPreTouch the whole heap is committed at boot, so it must match the budget
+    private final List<String> heapFlags;
+    // Template hash a training boot is running or done for; cleared again when one fails.
+    private volatile String trainedHash;
+    // Training boots started for attemptedHash, guarded by this
+    private String attemptedHash;
+    private int trainingAttempts;
+
+    /**
+     * {@code suspendable}: backends may be SIGSTOPped while idle, so the tick watchdog is turned
+     * off; otherwise it would take the pause for a hang and kill the server on resume.
+     * Background boots of the spawner's own are admitted through {@code scheduler}.
+     * {@code backendMemoryMb} is the whole footprint one backend is budgeted; its heap is fixed
+     * below that so the budget holds no matter how much RAM the host has.
+     */
+    public ServerSpawner(ComponentLogger logger, Path workdir, boolean suspendable, SpawnScheduler scheduler,
+                         long backendMemoryMb, ServerLogWatcher serverLogs) {
+        this.logger = logger;
+        this.suspendable = suspendable;
+        this.scheduler = scheduler;
+        this.serverLogs = serverLogs;
+        // The rest of the budget covers metaspace, code cache, thread stacks and direct buffers
+        long heapMb = Math.max(MIN_HEAP_MB, backendMemoryMb * 4 / 5);
+        this.heapFlags = List.of("-Xms" + heapMb + "M", "-Xmx" + heapMb + "M");
+        Path base = workdir.toAbsolutePath().normalize();
+        this.templates = new TemplateCache(logger, base.resolve(TEMPLATE_NAME), base.resolve("templates"));
+        this.serversRoot = base.resolve("servers");
+        this.javaExecutable = System.getProperty("dynamicloader.java", "java");
+        this.runtime = new PaperRuntime(logger, base.resolve("templates"), javaExecutable);
+        this.voidWorld = new VoidWorldSnapshot(logger, base.resolve("templates"));
+        this.companion = new CompanionJar(logger, base.resolve("templates"));
+        long worldCacheMb = Long.getLong("dynamicloader.worldCacheMb", 0L);
+        this.worldCache = worldCacheMb > 0
+                ? new WorldCache(logger, base.resolve("world-cache"), worldCacheMb * 1024 * 1024)
+                : null;
+        this.places = new PlaceSnapshots(logger, base.resolve("templates"));
+        this.sharedCache = new SharedCache(logger, base.resolve("shared-cache"),
+                splitList(System.getProperty("dynamicloader.sharedCacheDirs", "")),
+                Long.getLong("dynamicloader.sharedCacheMb", 10_240L) * 1024 * 1024);
+    }
+
+    private static List<String> splitList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    public Path folderFor(String serverName) {
+        return serversRoot.resolve(serverName);
+    }
+
+    /** Prepare the server folder and start Paper. The returned process is the server JVM itself. */
+    public Launched spawn(Request request) throws IOException {
+        Path folder = folderFor(request.serverName());
+        Files.createDirectories(serversRoot);
+
+        templates.cloneInto(folder, request.emptyWorld() ? WORLD_DIRS : Set.of());
+        boolean restored = worldCache != null && request.worldOwner() != null
+                && worldCache.restoreInto(request.worldOwner(), folder);
+        boolean prebaked = restored;
+        if (request.emptyWorld()) {
+            if (!restored) {
+                prebaked = voidWorld.restoreInto(templates.hash(), folder);
+            }
+            disableEnd(folder);
+        }
+        // An archived world may already hold its own build of the place; only a fresh world takes the bake wholesale
+        PlaceSnapshots.Landing landing = request.place() == null
+                ? null
+                : places.restoreInto(templates.hash(), request.place(), folder, restored);
+        if (companionEnabled) {
+            companion.installInto(folder);
+        }
+        if (sharedCache.enabled()) {
+            sharedCache.linkInto(folder);
+        }
+        writeServerProperties(folder, request);
+        acceptEula(folder);
+        enableVelocityForwarding(folder);
+        if (suspendable) {
+            disableWatchdog(folder);
+        }
+
+        Path jar = folder.resolve(SERVER_JAR);
+        if (!Files.isRegularFile(jar)) {
+            throw new IOException(jar + " is missing. Does your template include " + SERVER_JAR + "?");
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable);
+        command.addAll(heapFlags);
+        command.addAll(JVM_FLAGS);
+        String hash = templates.hash();
+        List<String> launch = runtime.launchArgs(hash, templates.baseDir().resolve(SERVER_JAR));
+        command.addAll(classArchiveArgs(hash, launch));
+        command.addAll(launch);
+        command.add("--nogui");
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(folder.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.appendTo(folder.resolve(LOG_FILE_NAME).toFile()));
+        Process process = pb.start();
+
+        // Kept for external tooling that still looks for the PID file; the proxy uses the handle directly.
+        try {
+            writePidFile(folder.resolve(PID_FILE_NAME), process.pid());
+        } catch (IOException ex) {
+            logger.warn("[Spawn] Unable to write PID file for {}: {}", request.serverName(), ex.getMessage());
+        }
+
+        logger.info("[Spawn] Launched {} (PID {}) on port {} with RCON {}{}",
+                request.serverName(), process.pid(), request.port(), request.rconPort(),
+                restored ? " from the leader's archived world" : prebaked ? " from the void world snapshot" : "");
+        return new Launched(process, prebaked, restored, landing);
+    }
+
+    /** Whether empty-world spawns of the current template still need a snapshot captured. */
+    public boolean needsVoidWorldSnapshot() {
+        try {
+            return !voidWorld.isAvailable(templates.hash());
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /** Save {@code serverName}'s flushed world as the void world snapshot for the current template. */
+    public void captureVoidWorld(String serverName) throws IOException {
+        voidWorld.capture(templates.hash(), folderFor(serverName));
+    }
+
+    public boolean worldCacheEnabled() {
+        return worldCache != null;
+    }
+
+    /** Archive {@code folder}'s world for {@code owner}; the server must have exited. No-op when disabled. */
+    public void archiveWorld(UUID owner, Path folder) throws IOException {
+        if (worldCache != null) {
+            worldCache.store(owner, folder);
+        }
+    }
+
+    /** Whether {@code owner} has an archived world, which only a fresh spawn can restore. */
+    public boolean hasArchivedWorld(UUID owner) {
+        return worldCache != null && worldCache.contains(owner);
+    }
+
+    public boolean isPlaceBaked(String place) throws IOException {
+        return places.isBaked(templates.hash(), place);
+    }
+
+    /** Bake {@code place} from a server whose world has been flushed after visiting it. */
+    public void bakePlace(String place, Path folder, PlaceSnapshots.Landing landing, int radiusBlocks) throws IOException {
+        places.capture(templates.hash(), place, folder, landing, radiusBlocks);
+    }
+
+    public boolean sharedCacheEnabled() {
+        return sharedCache.enabled();
+    }
+
+    /** Publish what an exited backend added to its tile cache; call before deleting its folder. */
+    public void releaseSharedCache(Path folder) {
+        if (sharedCache.enabled()) {
+            sharedCache.release(folder);
+        }
+    }
+
+    /** Bring the shared tile cache back under its size budget. */
+    public void trimSharedCache() throws IOException {
+        sharedCache.trim();
+    }
+
+    /** Use the AppCDS archive for this template if one exists, otherwise kick off its training boot. */
+    private List<String> classArchiveArgs(String hash, List<String> launch) {
+        if (!classArchiveEnabled) {
+            return List.of();
+        }
+        Optional<Path> archive = runtime.classArchive(hash);
+        if (archive.isEmpty()) {
+            return List.of();
+        }
+        if (Files.isRegularFile(archive.get())) {
+            return List.of("-XX:SharedArchiveFile=" + archive.get());
+        }
+        synchronized (this) {
+            if (hash.equals(trainedHash)) {
+                return List.of();
+            }
+            if (!hash.equals(attemptedHash)) {
+                attemptedHash = hash;
+                trainingAttempts = 0;
+            }
+            if (trainingAttempts >= MAX_TRAINING_ATTEMPTS) {
+                return List.of();
+            }
+            trainingAttempts++;
+            trainedHash = hash;
+        }
+        Thread trainer = new Thread(() -> trainClassArchive(archive.get(), launch), "DynamicLoader-appcds");
+        trainer.setDaemon(true);
+        trainer.start();
+        return List.of();
+    }
+
+    /**
+     * Boot a throwaway backend with {@code -XX:ArchiveClassesAtExit}, wait for Paper to finish
+     * starting, then stop it from the console so the JVM dumps every class it loaded. The boot
+     * waits for a slot like a warm refill, so it never competes with a player's.
+     */
+    private void trainClassArchive(Path archive, List<String> launch) {
+        Path folder = serversRoot.resolve(TRAINING_FOLDER);
+        Path pending = archive.resolveSibling(archive.getFileName() + ".tmp");
+        Process process = null;
+        SpawnScheduler.Permit permit = null;
+        Closeable logWatch = null;
+        boolean trained = false;
+        try {
+            long admitBy = System.currentTimeMillis() + TRAINING_ADMISSION_TIMEOUT_MS;
+            while ((permit = scheduler.tryAcquireWarm()) == null) {
+                if (System.currentTimeMillis() >= admitBy) {
+                    logger.info("[AppCDS] No boot slot for the training server; will retry on a later spawn");
+                    return;
+                }
+                Thread.sleep(2_000);
+            }
+            templates.cloneInto(folder, WORLD_DIRS);
+            writeServerProperties(folder, new Request(TRAINING_FOLDER, freePort(), 0, null, true, null, null));
+            // The template's RCON and query ports may belong to a live backend
+            overrideProperty(folder, "query.port", String.valueOf(freePort()));
+            acceptEula(folder);
+            enableVelocityForwarding(folder);
+            Files.deleteIfExists(pending);
+
+            List<String> command = new ArrayList<>();
+            command.add(javaExecutable);
+            command.addAll(heapFlags);
+            command.addAll(JVM_FLAGS);
+            command.add("-XX:ArchiveClassesAtExit=" + pending);
+            command.addAll(launch);
+            command.add("--nogui");
+
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            logWatch = serverLogs.watch(folder, false, new ServerLogWatcher.Listener() {
+                @Override
+                public void rconReady() {
+                }
+
+                @Override
+                public void serverDone() {
+                    done.complete(null);
+                }
+            });
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.directory(folder.toFile());
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.appendTo(folder.resolve(LOG_FILE_NAME).toFile()));
+            logger.info("[AppCDS] Training class archive {}", archive);
+            process = pb.start();
+
+            try {
+                CompletableFuture.anyOf(done, process.onExit()).get(TRAINING_BOOT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException ignored) {
+            }
+            if (!done.isDone()) {
+                logger.warn("[AppCDS] Training boot did not finish; backends start without a class archive for now");
+                return;
+            }
+            permit.close();
+
+            try (OutputStream console = process.getOutputStream()) {
+                console.write("stop\n".getBytes(StandardCharsets.UTF_8));
+                console.flush();
+            }
+            try {
+                process.onExit().get(TRAINING_STOP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            } catch (TimeoutException | ExecutionException ex) {
+                logger.warn("[AppCDS] Training server did not stop in time; discarding archive");
+                return;
+            }
+            if (Files.isRegularFile(pending) && Files.size(pending) > 0) {
+                Files.move(pending, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                trained = true;
+                logger.info("[AppCDS] Class archive ready ({} MB); new backends will map it",
+                        Files.size(archive) / (1024 * 1024));
+            } else {
+                logger.warn("[AppCDS] Training server exited without writing {}", pending);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            logger.warn("[AppCDS] Class archive training failed: {}", ex.getMessage());
+        } finally {
+            if (!trained) {
+                // Let a later spawn try again, up to MAX_TRAINING_ATTEMPTS per template
+                trainedHash = null;
+            }
+            if (logWatch != null) {
+                try {
+                    logWatch.close();
+                } catch (IOException ignored) {
+                }
+            }
+            if (permit != null) {
+                permit.close();
+            }
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+            try {
+                Files.deleteIfExists(pending);
+                FileTrees.deleteTree(folder);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void writeServerProperties(Path folder, Request request) throws IOException {
+        Path path = folder.resolve("server.properties");
+        List<String> props = Files.exists(path)
+                ? new ArrayList<>(Files.readAllLines(path, StandardCharsets.UTF_8))
+                : new ArrayList<>();
+
+        setProp(props, "server-port", String.valueOf(request.port()));
+        if (request.rconPort() > 0 && request.rconPass() != null) {
+            setProp(props, "enable-rcon", "true");
+            setProp(props, "rcon.port", String.valueOf(request.rconPort()));
+            setProp(props, "rcon.password", request.rconPass());
+        } else {
+            setProp(props, "enable-rcon", "false");
+        }
+        setProp(props, "view-distance", "32");
+        setProp(props, "simulation-distance", "6");
+        if (request.emptyWorld()) {
+            // Void worlds only ever use the overworld; skip generating and ticking the nether.
+            setProp(props, "allow-nether", "false");
+        }
+        // Velocity handles authentication; backends must run in offline mode behind it.
+        setProp(props, "online-mode", "false");
+
+        Files.writeString(path, String.join("\n", props) + "\n", StandardCharsets.UTF_8);
+    }
+
+    private static void overrideProperty(Path folder, String key, String value) throws IOException {
+        Path path = folder.resolve("server.properties");
+        List<String> props = new ArrayList<>(Files.readAllLines(path, StandardCharsets.UTF_8));
+        setProp(props, key, value);
+        Files.writeString(path, String.join("\n", props) + "\n", StandardCharsets.UTF_8);
+    }
+
+    private static void setProp(List<String> lines, String key, String value) {
+        String needle = key + "=";
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).startsWith(needle)) {
+                lines.set(i, needle + value);
+                return;
+            }
+        }
+        lines.add(needle + value);
+    }
+
+    private static void acceptEula(Path folder) throws IOException {
+        Path eula = folder.resolve("eula.txt");
+        if (!Files.exists(eula)) {
+            Files.writeString(eula, "eula=true\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void disableEnd(Path folder) throws IOException {
+        Path bukkit = folder.resolve("bukkit.yml");
+        if (!Files.exists(bukkit)) {
+            // Bukkit fills in the remaining defaults on first boot.
+            Files.writeString(bukkit, "settings:\n  allow-end: false\n", StandardCharsets.UTF_8);
+            return;
+        }
+        String text = Files.readString(bukkit, StandardCharsets.UTF_8);
+        String patched = END_ENABLED.matcher(text).replaceAll("$1false");
+        if (!patched.equals(text)) {
+            Files.writeString(bukkit, patched, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void disableWatchdog(Path folder) throws IOException {
+        Path spigot = folder.resolve("spigot.yml");
+        if (!Files.exists(spigot)) {
+            // Spigot fills in the remaining defaults on first boot.
+            Files.writeString(spigot, "settings:\n  timeout-time: -1\n", StandardCharsets.UTF_8);
+            return;
+        }
+        String text = Files.readString(spigot, StandardCharsets.UTF_8);
+        String patched = WATCHDOG_TIMEOUT.matcher(text).replaceAll("$1-1");
+        if (!patched.equals(text)) {
+            Files.writeString(spigot, patched, StandardCharsets.UTF_8);
+        }
+    }
+
+    private void enableVelocityForwarding(Path folder) throws IOException {
+        Path paperGlobal = folder.resolve("config").resolve("paper-global.yml");
+        if (!Files.exists(paperGlobal)) {
+            logger.warn("[Spawn] {} not found; skipping Velocity enable toggle", paperGlobal);
+            return;
+        }
+        String text = Files.readString(paperGlobal, StandardCharsets.UTF_8);
+        String patched = VELOCITY_DISABLED.matcher(text).replaceAll("$1true");
+        if (!patched.equals(text)) {
+            Files.writeString(paperGlobal, patched, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Atomically persist the PID so readers never observe a half-written file. */
+    private static void writePidFile(Path path, long pid) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tmp, pid + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
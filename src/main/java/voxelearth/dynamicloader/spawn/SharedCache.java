@@ -0,0 +1,252 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Host-wide store for the tile and voxelizer caches the Voxel Earth plugin writes inside its
+ * server folder, so a place fetched and voxelized by one backend is a cache hit for the next.
+ * Backends never write into the store. Each configured server-relative directory starts as a
+ * private directory of hard links to the store's entries; whatever a backend adds is published
+ * back by copying it under a temporary name and renaming it into place, so nobody ever reads a
+ * half-written entry and the first copy of a tile wins. This relies on the plugin only ever
+ * creating entries, never rewriting one in place, since a rewrite would reach the linked store
+ * file as well. The proxy keeps the store under its byte budget by deleting the entries
+ * published longest ago; reads are not tracked, as access times are unreliable on relatime and
+ * noatime mounts.
+ */
+public final class SharedCache {
+
+    // A file a backend changed more recently than this may still be being written
+    private static final long MIN_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final String TEMP_PREFIX = ".";
+
+    private record CacheFile(Path path, long size, long published) {}
+
+    private final ComponentLogger logger;
+    private final Path root;
+    private final List<Path> relativeDirs;
+    private final long maxBytes;
+    // Serializes seeding, publishing and trimming of the store
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Path> serverFolders = ConcurrentHashMap.newKeySet();
+    private final AtomicLong tempIds = new AtomicLong();
+    private volatile boolean linksSupported = true;
+
+    public SharedCache(ComponentLogger logger, Path root, List<String> relativeDirs, long maxBytes) {
+        this.logger = logger;
+        this.root = root;
+        this.maxBytes = maxBytes;
+        List<Path> dirs = new ArrayList<>();
+        for (String dir : relativeDirs) {
+            Path rel = Path.of(dir).normalize();
+            if (rel.isAbsolute() || rel.toString().isEmpty() || rel.startsWith("..")) {
+                logger.warn("[Cache] Ignoring shared cache directory {}; it must be inside the server folder", dir);
+                continue;
+            }
+            dirs.add(rel);
+        }
+        this.relativeDirs = List.copyOf(dirs);
+    }
+
+    public boolean enabled() {
+        return !relativeDirs.isEmpty();
+    }
+
+    /**
+     * Fill each shared directory of {@code serverFolder} with links to the store's entries.
+     * Whatever the template ships there seeds the store the first time. Without hard link
+     * support the server starts from an empty cache, and what it builds is still published.
+     */
+    public void linkInto(Path serverFolder) throws IOException {
+        serverFolders.add(serverFolder);
+        for (Path rel : relativeDirs) {
+            Path target = serverFolder.resolve(rel.toString());
+            Path shared = root.resolve(rel.toString());
+            seed(shared, target);
+            FileTrees.deleteTree(target);
+            Files.createDirectories(target);
+            if (linksSupported) {
+                linkEntries(shared, target);
+            }
+        }
+    }
+
+    /** Publish what a backend that has exited built, and stop tracking its folder. */
+    public void release(Path serverFolder) {
+        if (serverFolders.remove(serverFolder)) {
+            publish(serverFolder);
+        }
+    }
+
+    private void seed(Path shared, Path templateCopy) throws IOException {
+        if (Files.isDirectory(shared)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (Files.isDirectory(shared)) {
+                return;
+            }
+            Files.createDirectories(shared.getParent());
+            Path staging = shared.resolveSibling(TEMP_PREFIX + shared.getFileName() + ".tmp-" + ProcessHandle.current().pid());
+            FileTrees.deleteTree(staging);
+            if (Files.isDirectory(templateCopy)) {
+                // Copied, not moved: template files may be hard links into the template base
+                FileTrees.copyTree(templateCopy, staging);
+            } else {
+                Files.createDirectories(staging);
+            }
+            Files.move(staging, shared, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("[Cache] Shared cache directory created at {}", shared);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void linkEntries(Path shared, Path target) throws IOException {
+        Files.walkFileTree(shared, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(shared.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile() || file.getFileName().toString().startsWith(TEMP_PREFIX)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                try {
+                    Files.createLink(target.resolve(shared.relativize(file).toString()), file);
+                } catch (NoSuchFileException trimmed) {
+                    // Deleted by a trim while we walked
+                } catch (UnsupportedOperationException | FileSystemException ex) {
+                    linksSupported = false;
+                    logger.warn("[Cache] Cannot hard-link shared cache entries ({}); backends start with empty caches",
+                            ex.getMessage());
+                    return FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /** Copy the settled entries {@code serverFolder} has that the store lacks into the store. */
+    private void publish(Path serverFolder) {
+        long cutoff = System.currentTimeMillis() - MIN_AGE_MILLIS;
+        lock.lock();
+        try {
+            for (Path rel : relativeDirs) {
+                Path source = serverFolder.resolve(rel.toString());
+                Path shared = root.resolve(rel.toString());
+                if (!Files.isDirectory(source) || Files.isSymbolicLink(source)) {
+                    continue;
+                }
+                Files.walkFileTree(source, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        Path dest = shared.resolve(source.relativize(file).toString());
+                        if (attrs.isRegularFile() && attrs.lastModifiedTime().toMillis() <= cutoff && !Files.exists(dest)) {
+                            publishEntry(file, dest);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE; // deleted by the backend while we walked
+                    }
+                });
+            }
+        } catch (IOException ex) {
+            logger.warn("[Cache] Could not publish the cache of {}: {}", serverFolder, ex.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publishEntry(Path file, Path dest) throws IOException {
+        Files.createDirectories(dest.getParent());
+        Path temp = dest.resolveSibling(TEMP_PREFIX + dest.getFileName() + ".tmp-" + tempIds.incrementAndGet());
+        try {
+            // A copy, so the backend's later writes to its own file never reach the store
+            Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, dest, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException gone) {
+            // The backend deleted it first
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Publish what running backends have built, then delete the entries published longest ago
+     * until the store fits its budget; returns the bytes freed.
+     */
+    public long trim() throws IOException {
+        serverFolders.forEach(this::publish);
+        if (!Files.isDirectory(root)) {
+            return 0L;
+        }
+        lock.lock();
+        try {
+            List<CacheFile> files = new ArrayList<>();
+            long[] total = {0L};
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        files.add(new CacheFile(file, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                        total[0] += attrs.size();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            if (total[0] <= maxBytes) {
+                return 0L;
+            }
+            // Trim a little below the budget so the next few tiles do not trigger another pass
+            long goal = maxBytes - maxBytes / 10;
+            files.sort(Comparator.comparingLong(CacheFile::published));
+            long freed = 0L;
+            for (CacheFile file : files) {
+                if (total[0] - freed <= goal) {
+                    break;
+                }
+                try {
+                    // Backends that linked the entry keep their own link to it
+                    Files.deleteIfExists(file.path());
+                    freed += file.size();
+                } catch (IOException ignored) {
+                }
+            }
+            logger.info("[Cache] Trimmed {} MB from the shared cache ({} MB kept)",
+                    freed / (1024 * 1024), (total[0] - freed) / (1024 * 1024));
+            return freed;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
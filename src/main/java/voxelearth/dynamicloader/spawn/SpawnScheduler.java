@@ -0,0 +1,127 @@
+package voxelearth.dynamicloader.spawn;
+
+import java.time.Duration;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for backend boots. At most {@code maxConcurrentBoots} servers start at
+ * once, and a boot is only admitted while the host has enough free memory and CPU headroom.
+ * Player-initiated spawns wait for a slot and always go ahead of warm pool refills.
+ */
+public final class SpawnScheduler {
+
+    public enum Priority { PLAYER, WARM }
+
+    /** A held boot slot; close it once the backend is ready or has failed. */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit() {}
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        }
+    }
+
+    // Resource readings change without anyone signalling, so waiters re-check on this cadence.
+    private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final int maxConcurrentBoots;
+    private final long minFreeMemoryMb;
+    private final double maxLoadPerCpu;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int activeBoots;
+    private int waitingPlayers;
+
+    public SpawnScheduler(int maxConcurrentBoots, long minFreeMemoryMb, double maxLoadPerCpu) {
+        this.maxConcurrentBoots = Math.max(1, maxConcurrentBoots);
+        this.minFreeMemoryMb = Math.max(0, minFreeMemoryMb);
+        this.maxLoadPerCpu = maxLoadPerCpu;
+    }
+
+    /** Wait up to {@code timeout} for a player boot slot; returns null if none was admitted in time. */
+    public Permit acquire(Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            waitingPlayers++;
+            try {
+                while (!admissible(Priority.PLAYER)) {
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    long waited = Math.min(remaining, RECHECK_NANOS);
+                    long left = changed.awaitNanos(waited);
+                    remaining -= waited - Math.max(0, left);
+                }
+            } finally {
+                waitingPlayers--;
+            }
+            activeBoots++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Admit a warm pool boot only if a slot is free right now and no player is waiting. */
+    public Permit tryAcquireWarm() {
+        lock.lock();
+        try {
+            if (!admissible(Priority.WARM)) {
+                return null;
+            }
+            activeBoots++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int activeBoots() {
+        lock.lock();
+        try {
+            return activeBoots;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            activeBoots = Math.max(0, activeBoots - 1);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admissible(Priority priority) {
+        if (activeBoots >= maxConcurrentBoots) {
+            return false;
+        }
+        if (priority == Priority.WARM && waitingPlayers > 0) {
+            return false;
+        }
+        OptionalLong free = HostResources.availableMemoryMb();
+        if (free.isPresent() && free.getAsLong() < minFreeMemoryMb) {
+            return false;
+        }
+        // A player spawn with nothing else booting proceeds even on a busy host; otherwise it could starve.
+        if (priority == Priority.PLAYER && activeBoots == 0) {
+            return true;
+        }
+        OptionalDouble load = HostResources.loadPerCpu();
+        return load.isEmpty() || load.getAsDouble() <= maxLoadPerCpu;
+    }
+}
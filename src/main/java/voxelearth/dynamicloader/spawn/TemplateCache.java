@@ -0,0 +1,178 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts the server template once per content hash under {@code templates/} and builds
+ * per-server folders from it. Payload nothing ever rewrites (jars, native libraries, the
+ * voxelizer binary) is hard-linked; everything else is copied so the shared base never changes.
+ */
+public final class TemplateCache {
+
+    private static final String DIR_PREFIX = "voxelearth-";
+    private static final Set<String> LINKABLE_EXTENSIONS = Set.of("jar", "so", "dll", "dylib");
+    private static final Set<String> LINKABLE_NAMES = Set.of("cuda_voxelizer", "cuda_voxelizer.exe");
+
+    /** Identity of the template zip the current base was extracted from. */
+    private record Snapshot(long size, FileTime modified, String hash, Path dir) {}
+
+    private final ComponentLogger logger;
+    private final Path zip;
+    private final Path templatesRoot;
+    private volatile Snapshot current;
+    // Serializes extraction of a new template base
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean pruned; // guarded by lock
+    private volatile boolean linksSupported = true;
+
+    public TemplateCache(ComponentLogger logger, Path zip, Path templatesRoot) {
+        this.logger = logger;
+        this.zip = zip;
+        this.templatesRoot = templatesRoot;
+    }
+
+    /** Content hash of the template the next clone will use, extracting it first if needed. */
+    public String hash() throws IOException {
+        return resolve().hash();
+    }
+
+    /** Extracted template directory for the current zip contents. */
+    public Path baseDir() throws IOException {
+        return resolve().dir();
+    }
+
+    /**
+     * Replace {@code dest} with a fresh copy of the template. Top-level entries named in
+     * {@code skipTopLevel} (e.g. world folders) are left out entirely.
+     */
+    public void cloneInto(Path dest, Set<String> skipTopLevel) throws IOException {
+        Path base = baseDir();
+        FileTrees.deleteTree(dest);
+        Files.createDirectories(dest);
+
+        Files.walkFileTree(base, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path rel = base.relativize(dir);
+                if (rel.getNameCount() == 1 && skipTopLevel.contains(rel.toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(dest.resolve(rel.toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path rel = base.relativize(file);
+                if (rel.getNameCount() == 1 && skipTopLevel.contains(rel.toString())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path target = dest.resolve(rel.toString());
+                if (isImmutable(file)) {
+                    if (!FileTrees.linkOrCopy(file, target, linksSupported) && linksSupported) {
+                        linksSupported = false;
+                        logger.warn("[Template] Hard links unavailable under {}; falling back to copies", target.getParent());
+                    }
+                } else {
+                    Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private Snapshot resolve() throws IOException {
+        if (!Files.isRegularFile(zip)) {
+            throw new IOException("Template zip not found: " + zip);
+        }
+        BasicFileAttributes attrs = Files.readAttributes(zip, BasicFileAttributes.class);
+        Snapshot snap = current;
+        if (snap != null && matches(snap, attrs) && Files.isDirectory(snap.dir())) {
+            return snap;
+        }
+        lock.lock();
+        try {
+            snap = current;
+            if (snap != null && matches(snap, attrs) && Files.isDirectory(snap.dir())) {
+                return snap;
+            }
+            String hash = FileTrees.sha256(zip);
+            Path dir = templatesRoot.resolve(DIR_PREFIX + hash.substring(0, 16));
+            if (!Files.isDirectory(dir)) {
+                extract(dir);
+            }
+            if (!pruned) {
+                // Only on the first resolve, before any clone can be walking a base; running servers
+                // keep their hard-linked inodes, and a base replaced while the proxy runs goes at the next start
+                FileTrees.pruneSiblings(templatesRoot, DIR_PREFIX, dir::equals, logger, "[Template]");
+                pruned = true;
+            }
+            snap = new Snapshot(attrs.size(), attrs.lastModifiedTime(), hash, dir);
+            current = snap;
+            logger.info("[Template] Using template base {} ({})", dir, hash.substring(0, 16));
+            return snap;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean matches(Snapshot snap, BasicFileAttributes attrs) {
+        return snap.size() == attrs.size() && snap.modified().equals(attrs.lastModifiedTime());
+    }
+
+    /** Unzip into a scratch folder and publish it with an atomic rename, so a partial base is never visible. */
+    private void extract(Path dir) throws IOException {
+        Files.createDirectories(templatesRoot);
+        Path staging = templatesRoot.resolve("." + dir.getFileName() + ".tmp-" + ProcessHandle.current().pid());
+        FileTrees.deleteTree(staging);
+        Files.createDirectories(staging);
+        logger.info("[Template] Extracting {} -> {}", zip, dir);
+
+        Path root = staging.toAbsolutePath().normalize();
+        try (ZipFile zf = new ZipFile(zip.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zf.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                Path target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IOException("Template entry escapes template folder: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                try (InputStream in = zf.getInputStream(entry)) {
+                    Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (LINKABLE_NAMES.contains(target.getFileName().toString())) {
+                    target.toFile().setExecutable(true, false);
+                }
+            }
+        }
+        try {
+            Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException raced) {
+            FileTrees.deleteTree(staging);
+        }
+    }
+
+    private static boolean isImmutable(Path file) {
+        String name = file.getFileName().toString();
+        if (LINKABLE_NAMES.contains(name)) {
+            return true;
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && LINKABLE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
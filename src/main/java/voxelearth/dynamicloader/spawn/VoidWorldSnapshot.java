@@ -0,0 +1,75 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Set;
+
+/**
+ * A void overworld with the spawn platform and world spawn already in place, captured once
+ * per template hash from a freshly initialized warm backend and copied into new empty-world
+ * servers so they skip world generation and the platform RCON round trips.
+ */
+public final class VoidWorldSnapshot {
+
+    private static final String DIR_PREFIX = "void-world-";
+    private static final String WORLD = "world";
+    // Lock and player state are per-server and must not travel with the snapshot.
+    private static final Set<String> SKIP = Set.of("session.lock", "playerdata", "stats", "advancements");
+
+    private final ComponentLogger logger;
+    private final Path snapshotsRoot;
+
+    public VoidWorldSnapshot(ComponentLogger logger, Path snapshotsRoot) {
+        this.logger = logger;
+        this.snapshotsRoot = snapshotsRoot;
+    }
+
+    public boolean isAvailable(String templateHash) {
+        return Files.isDirectory(dirFor(templateHash).resolve(WORLD));
+    }
+
+    /** Copy the baked world into {@code serverFolder}; returns false when no snapshot exists yet. */
+    public boolean restoreInto(String templateHash, Path serverFolder) throws IOException {
+        Path world = dirFor(templateHash).resolve(WORLD);
+        if (!Files.isDirectory(world)) {
+            return false;
+        }
+        FileTrees.copyTree(world, serverFolder.resolve(WORLD), SKIP);
+        return true;
+    }
+
+    /**
+     * Capture {@code serverFolder/world} as the snapshot for this template. The caller must have
+     * flushed the world to disk (and paused autosave) first. Existing snapshots are kept.
+     */
+    public void capture(String templateHash, Path serverFolder) throws IOException {
+        Path dir = dirFor(templateHash);
+        if (Files.isDirectory(dir)) {
+            return;
+        }
+        Path source = serverFolder.resolve(WORLD);
+        if (!Files.isDirectory(source)) {
+            throw new IOException("No world folder under " + serverFolder);
+        }
+        Files.createDirectories(snapshotsRoot);
+        Path staging = snapshotsRoot.resolve("." + dir.getFileName() + ".tmp-" + ProcessHandle.current().pid());
+        FileTrees.deleteTree(staging);
+        FileTrees.copyTree(source, staging.resolve(WORLD), SKIP);
+        try {
+            Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException raced) {
+            FileTrees.deleteTree(staging);
+            return;
+        }
+        FileTrees.pruneSiblings(snapshotsRoot, DIR_PREFIX, dir::equals, logger, "[World]");
+        logger.info("[World] Captured void world snapshot {} ({} KB)", dir, FileTrees.sizeOf(dir) / 1024);
+    }
+
+    private Path dirFor(String templateHash) {
+        return snapshotsRoot.resolve(DIR_PREFIX + templateHash.substring(0, 16));
+    }
+
+
+}
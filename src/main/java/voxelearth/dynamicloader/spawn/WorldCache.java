@@ -0,0 +1,170 @@
+package voxelearth.dynamicloader.spawn;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-leader archive of the {@code world/} a party left behind (region files, player data and
+ * whatever the Voxel Earth plugin keeps next to them), so the next session starts from the
+ * places already built instead of re-voxelizing them. Worlds are moved, not copied, in both
+ * directions, and only ever restored whole into a server that has not started: a running
+ * server would keep its own copies of any region it already holds and store them over the
+ * archived ones. The store is bounded by total bytes and evicts the least recently stored first.
+ */
+public final class WorldCache {
+
+    private static final String WORLD = "world";
+    private static final Set<String> SKIP = Set.of("session.lock");
+
+    private final ComponentLogger logger;
+    private final Path root;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<String, Long> sizes; // entry name -> bytes; loaded on first use, guarded by lock
+
+    public WorldCache(ComponentLogger logger, Path root, long maxBytes) {
+        this.logger = logger;
+        this.root = root;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Archive {@code serverFolder/world} for {@code owner}, replacing any older archive. The server must have exited. */
+    public void store(UUID owner, Path serverFolder) throws IOException {
+        Path source = serverFolder.resolve(WORLD);
+        if (!Files.isDirectory(source)) {
+            return;
+        }
+        lock.lock();
+        try {
+            loadSizes();
+            Path dir = dirFor(owner);
+            Path staging = root.resolve("." + owner + ".tmp-" + ProcessHandle.current().pid());
+            FileTrees.deleteTree(staging);
+            Files.createDirectories(staging);
+            moveTree(source, staging.resolve(WORLD));
+            Files.deleteIfExists(staging.resolve(WORLD).resolve("session.lock"));
+            remove(owner.toString());
+            Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+            Files.setLastModifiedTime(dir, FileTime.fromMillis(System.currentTimeMillis()));
+            long bytes = FileTrees.sizeOf(dir);
+            sizes.put(owner.toString(), bytes);
+            logger.info("[World] Archived world of {} ({} MB)", owner, bytes / (1024 * 1024));
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move {@code owner}'s archived world into a server folder that has not started yet,
+     * replacing the template's world. Returns false when nothing is archived.
+     */
+    public boolean restoreInto(UUID owner, Path serverFolder) throws IOException {
+        lock.lock();
+        try {
+            Path world = dirFor(owner).resolve(WORLD);
+            if (!Files.isDirectory(world)) {
+                return false;
+            }
+            loadSizes();
+            Path target = serverFolder.resolve(WORLD);
+            FileTrees.deleteTree(target);
+            try {
+                moveTree(world, target);
+            } catch (IOException ex) {
+                // moveTree only deletes the source once the copy is complete
+                FileTrees.deleteTree(target);
+                throw new IOException("Could not restore the archived world of " + owner
+                        + "; the archive is untouched: " + ex.getMessage(), ex);
+            }
+            remove(owner.toString());
+            logger.info("[World] Restored archived world of {} into {}", owner, serverFolder);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Whether {@code owner} has an archived world waiting to be restored. */
+    public boolean contains(UUID owner) {
+        lock.lock();
+        try {
+            return Files.isDirectory(dirFor(owner).resolve(WORLD));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path dirFor(UUID owner) {
+        return root.resolve(owner.toString());
+    }
+
+    private void loadSizes() throws IOException {
+        if (sizes != null) {
+            return;
+        }
+        sizes = new HashMap<>();
+        Files.createDirectories(root);
+        try (var stream = Files.list(root)) {
+            for (Path entry : stream.toList()) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".")) {
+                    FileTrees.deleteTree(entry); // staging left by a crash
+                } else if (Files.isDirectory(entry)) {
+                    sizes.put(name, FileTrees.sizeOf(entry));
+                }
+            }
+        }
+    }
+
+    private void remove(String name) throws IOException {
+        FileTrees.deleteTree(root.resolve(name));
+        sizes.remove(name);
+    }
+
+    /** Drop the least recently stored archives until the total fits the budget. */
+    private void evict() {
+        long total = sizes.values().stream().mapToLong(Long::longValue).sum();
+        if (total <= maxBytes) {
+            return;
+        }
+        List<String> byAge = new ArrayList<>(sizes.keySet());
+        byAge.sort(Comparator.comparing(name -> lastModified(root.resolve(name))));
+        for (String name : byAge) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long bytes = sizes.getOrDefault(name, 0L);
+            try {
+                remove(name);
+                total -= bytes;
+                logger.info("[World] Evicted archived world {} ({} MB)", name, bytes / (1024 * 1024));
+            } catch (IOException ex) {
+                logger.warn("[World] Could not evict archived world {}: {}", name, ex.getMessage());
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path dir) {
+        try {
+            return Files.getLastModifiedTime(dir);
+        } catch (IOException ex) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /** Rename when source and target share a file system, otherwise copy and delete. */
+    private static void moveTree(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            FileTrees.copyTree(source, target, SKIP);
+            FileTrees.deleteTree(source);
+        }
+    }
+}